@@ -0,0 +1,177 @@
+package com.bookstore.config;
+
+import com.bookstore.util.AdmissionQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Waiting room for the checkout endpoints (placing an order and starting a VNPay payment).
+ * Requests are admitted at a fixed rate; the rest get a signed queue ticket and a 429 with Retry-After,
+ * and come back with the ticket in X-Queue-Ticket until their turn comes. A full queue answers 503 straight away.
+ * Once admitted, a ticket lets one request in within checkout.admission.admitted-ttl-seconds; after that it is
+ * treated as no ticket at all, so it cannot be replayed to skip the queue.
+ * Admitted requests also share a small concurrency limit, so checkout can never occupy the whole
+ * Tomcat pool and catalog browsing keeps its threads.
+ */
+@Component
+public class CheckoutAdmissionFilter extends OncePerRequestFilter {
+    public static final String TICKET_HEADER = "X-Queue-Ticket";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${checkout.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${checkout.admission.rate-per-second:50}")
+    private double ratePerSecond;
+
+    @Value("${checkout.admission.burst:100}")
+    private int burst;
+
+    @Value("${checkout.admission.max-queue:5000}")
+    private int maxQueue;
+
+    @Value("${checkout.admission.ticket-ttl-seconds:600}")
+    private long ticketTtlSeconds;
+
+    @Value("${checkout.admission.admitted-ttl-seconds:60}")
+    private long admittedTtlSeconds;
+
+    @Value("${checkout.admission.max-concurrent:20}")
+    private int maxConcurrent;
+
+    private AdmissionQueue queue;
+    private Semaphore inFlight;
+    private byte[] ticketKey;
+
+    @PostConstruct
+    public void init() {
+        queue = new AdmissionQueue(ratePerSecond, burst, maxQueue, admittedTtlSeconds * 1000);
+        inFlight = new Semaphore(maxConcurrent);
+        // Tickets only have to survive as long as the in-memory queue, so a per-process key is enough
+        ticketKey = new byte[32];
+        new SecureRandom().nextBytes(ticketKey);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !path.equals("/api/orders") && !path.equals("/api/payments/create-vnpay-url");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long ticket = parseTicket(request.getHeader(TICKET_HEADER));
+        AdmissionQueue.Decision decision = ticket >= 0 ? queue.check(ticket) : queue.arrive();
+
+        switch (decision.getOutcome()) {
+            case QUEUED -> {
+                // A waiting client keeps its original ticket, so the ticket's age counts from when it joined the queue
+                String ticketValue = decision.getTicket() == ticket ? request.getHeader(TICKET_HEADER) : issueTicket(decision.getTicket());
+                response.setHeader(TICKET_HEADER, ticketValue);
+                Map<String, Object> body = new HashMap<>();
+                body.put("error", "Hệ thống đang đông khách, bạn đang ở vị trí " + decision.getPosition() + " trong hàng chờ");
+                body.put("ticket", ticketValue);
+                body.put("position", decision.getPosition());
+                body.put("retryAfter", decision.getRetryAfterSeconds());
+                reject(response, 429, decision.getRetryAfterSeconds(), body);
+            }
+            case REJECTED -> reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, decision.getRetryAfterSeconds(),
+                    Map.of("error", "Hàng chờ thanh toán đã đầy, vui lòng thử lại sau", "retryAfter", decision.getRetryAfterSeconds()));
+            default -> {
+                if (!inFlight.tryAcquire()) {
+                    if (decision.getTicket() >= 0) {
+                        // Turned away before doing anything: the ticket stays good for the retry
+                        queue.giveBack(decision.getTicket());
+                    }
+                    reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1,
+                            Map.of("error", "Hệ thống đang bận, vui lòng thử lại", "retryAfter", 1));
+                    return;
+                }
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, int status, long retryAfterSeconds, Map<String, Object> body) throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(objectMapper.writeValueAsString(body));
+    }
+
+    /**
+     * Ticket format: sequence.issuedAtMillis.signature
+     */
+    private String issueTicket(long sequence) {
+        String payload = sequence + "." + System.currentTimeMillis();
+        return payload + "." + sign(payload);
+    }
+
+    /**
+     * @return the ticket's sequence number, or -1 if the header is missing, forged or too old
+     */
+    private long parseTicket(String header) {
+        if (header == null) {
+            return -1;
+        }
+        int lastDot = header.lastIndexOf('.');
+        int firstDot = header.indexOf('.');
+        if (firstDot <= 0 || lastDot <= firstDot) {
+            return -1;
+        }
+        String payload = header.substring(0, lastDot);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, header.substring(lastDot + 1).getBytes(StandardCharsets.US_ASCII))) {
+            return -1;
+        }
+        try {
+            long issuedAt = Long.parseLong(header.substring(firstDot + 1, lastDot));
+            if (System.currentTimeMillis() - issuedAt > ticketTtlSeconds * 1000) {
+                return -1;
+            }
+            return Long.parseLong(header.substring(0, firstDot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(ticketKey, "HmacSHA256"));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -2,13 +2,23 @@ package com.bookstore.controller;
 
 import com.bookstore.dto.ReportDTO;
 import com.bookstore.repository.*;
+import com.bookstore.service.BookService;
+import com.bookstore.service.CatalogCache;
+import com.bookstore.service.DashboardService;
+import com.bookstore.service.FlashSaleService;
+import com.bookstore.service.OrderService;
 import com.bookstore.service.ReportService;
+import com.bookstore.service.ReviewService;
+import com.bookstore.service.SalesAnalyticsService;
+import com.bookstore.service.SalesRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,9 +26,6 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
 public class AdminController {
     
-    @Autowired
-    private UserRepository userRepository;
-    
     @Autowired
     private BookRepository bookRepository;
     
@@ -26,86 +33,36 @@ public class AdminController {
     private OrderRepository orderRepository;
     
     @Autowired
-    private PaymentRepository paymentRepository;
-    
+    private ReportService reportService;
+
     @Autowired
-    private ReviewRepository reviewRepository;
+    private BookService bookService;
 
     @Autowired
-    private ReportService reportService;
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    @Autowired
+    private DashboardService dashboardService;
 
     @GetMapping("/dashboard/statistics")
     public ResponseEntity<Map<String, Object>> getDashboardStatistics() {
         try {
-            Map<String, Object> stats = new HashMap<>();
-            
-            // User statistics
-            long totalUsers = userRepository.count();
-            long adminCount = userRepository.findAll().stream()
-                .filter(u -> "admin".equals(u.getRole()))
-                .count();
-            long customerCount = totalUsers - adminCount;
-            
-            // Book statistics
-            long totalBooks = bookRepository.count();
-            
-            // Order statistics
-            long totalOrders = orderRepository.count();
-            long pendingOrders = orderRepository.findAll().stream()
-                .filter(o -> "pending".equals(o.getStatus()))
-                .count();
-            long completedOrders = orderRepository.findAll().stream()
-                .filter(o -> "completed".equals(o.getStatus()))
-                .count();
-            
-            // Revenue statistics
-            double totalRevenue = orderRepository.findAll().stream()
-                .mapToDouble(o -> o.getTotalAmount().doubleValue())
-                .sum();
-            
-            // Payment statistics
-            long completedPayments = paymentRepository.findAll().stream()
-                .filter(p -> "completed".equals(p.getStatus()))
-                .count();
-            
-            // Review statistics
-            long totalReviews = reviewRepository.count();
-            double averageRating = reviewRepository.findAll().stream()
-                .mapToDouble(r -> r.getRating())
-                .average()
-                .orElse(0.0);
-            
-            stats.put("users", Map.of(
-                "total", totalUsers,
-                "admins", adminCount,
-                "customers", customerCount
-            ));
-            
-            stats.put("books", Map.of(
-                "total", totalBooks
-            ));
-            
-            stats.put("orders", Map.of(
-                "total", totalOrders,
-                "pending", pendingOrders,
-                "completed", completedOrders
-            ));
-            
-            stats.put("revenue", Map.of(
-                "total", totalRevenue,
-                "currency", "VND"
-            ));
-            
-            stats.put("payments", Map.of(
-                "completed", completedPayments
-            ));
-            
-            stats.put("reviews", Map.of(
-                "total", totalReviews,
-                "averageRating", Math.round(averageRating * 100.0) / 100.0
-            ));
-            
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok(dashboardService.getStatistics());
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, Object> error = new HashMap<>();
@@ -141,13 +98,140 @@ public class AdminController {
     @GetMapping("/reports")
     public ResponseEntity<?> getReport(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer topN) {
         try {
-            ReportDTO report = reportService.generateReport(startDate, endDate);
+            ReportDTO report = topN != null
+                    ? reportService.generateReport(startDate, endDate, topN)
+                    : reportService.generateReport(startDate, endDate);
             return ResponseEntity.ok(report);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
     }
+
+    @PostMapping("/search/reindex")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        try {
+            long start = System.currentTimeMillis();
+            int indexed = bookService.rebuildSearchIndex();
+            Map<String, Object> response = new HashMap<>();
+            response.put("indexedBooks", indexed);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reviews/rating-summary/rebuild")
+    public ResponseEntity<?> rebuildRatingSummaries() {
+        try {
+            long start = System.currentTimeMillis();
+            int updated = reviewService.recomputeRatingSummaries();
+            Map<String, Object> response = new HashMap<>();
+            response.put("updatedBooks", updated);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Recompute daily_sales_rollup from the orders, e.g. after a crash lost unflushed deltas.
+     */
+    @PostMapping("/reports/rollup/rebuild")
+    public ResponseEntity<?> rebuildSalesRollup() {
+        try {
+            long start = System.currentTimeMillis();
+            int rows = salesRollupService.rebuild();
+            Map<String, Object> response = new HashMap<>();
+            response.put("rows", rows);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ad-hoc sales breakdown over the in-memory order lines; prices and bandWidth are in major units.
+     * Answers 503 until the lines have been loaded after startup.
+     */
+    @GetMapping("/analytics/sales")
+    public ResponseEntity<?> getSalesAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Integer> categoryIds,
+            @RequestParam(required = false) List<Integer> authorIds,
+            @RequestParam(required = false) List<String> statuses,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) BigDecimal bandWidth) {
+        Map<String, Object> stats = salesAnalyticsService.stats();
+        if (!Boolean.TRUE.equals(stats.get("loaded"))) {
+            Map<String, Object> response = new HashMap<>(stats);
+            response.put("error", "Service Unavailable");
+            response.put("message", Boolean.TRUE.equals(stats.get("enabled"))
+                    ? "Sales analytics is still loading" : "Sales analytics is disabled");
+            return ResponseEntity.status(503).body(response);
+        }
+        return ResponseEntity.ok(salesAnalyticsService.query(from, to, categoryIds, authorIds, statuses,
+                minPrice, maxPrice, groupBy, bandWidth));
+    }
+
+    @GetMapping("/analytics/sales/stats")
+    public ResponseEntity<Map<String, Object>> getSalesAnalyticsStats() {
+        return ResponseEntity.ok(salesAnalyticsService.stats());
+    }
+
+    @PostMapping("/orders/user-summaries/rebuild")
+    public ResponseEntity<?> rebuildUserOrderSummaries() {
+        try {
+            long start = System.currentTimeMillis();
+            int users = orderService.rebuildUserSummaries();
+            Map<String, Object> response = new HashMap<>();
+            response.put("users", users);
+            response.put("durationMs", System.currentTimeMillis() - start);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("caches", catalogCache.stats());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/cache/clear")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        catalogCache.clear();
+        return ResponseEntity.ok(Map.of("message", "Catalog cache cleared"));
+    }
+
+    @GetMapping("/flash-sales")
+    public ResponseEntity<?> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.list());
+    }
+
+    @PostMapping("/flash-sales/{bookId}")
+    public ResponseEntity<?> startFlashSale(@PathVariable Integer bookId) {
+        return ResponseEntity.ok(flashSaleService.start(bookId));
+    }
+
+    @DeleteMapping("/flash-sales/{bookId}")
+    public ResponseEntity<Map<String, Object>> endFlashSale(@PathVariable Integer bookId) {
+        flashSaleService.end(bookId);
+        return ResponseEntity.ok(Map.of("message", "Flash sale ended for book " + bookId));
+    }
 }
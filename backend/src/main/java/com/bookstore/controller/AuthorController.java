@@ -2,11 +2,14 @@ package com.bookstore.controller;
 
 import com.bookstore.model.Author;
 import com.bookstore.repository.AuthorRepository;
+import com.bookstore.service.BookService;
+import com.bookstore.service.CatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/authors")
@@ -15,35 +18,50 @@ public class AuthorController {
     @Autowired
     private AuthorRepository authorRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookService bookService;
+
     @GetMapping
     public ResponseEntity<List<Author>> getAllAuthors() {
-        return ResponseEntity.ok(authorRepository.findAll());
+        return ResponseEntity.ok(catalogCache.getAllAuthors());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Author> getAuthorById(@PathVariable Integer id) {
-        return authorRepository.findById(id)
+        return catalogCache.getAuthor(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public ResponseEntity<Author> createAuthor(@RequestBody Author author) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(authorRepository.save(author));
+        Author saved = authorRepository.save(author);
+        catalogCache.evictAuthor(saved.getAuthorId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Author> updateAuthor(@PathVariable Integer id, @RequestBody Author authorDetails) {
         return authorRepository.findById(id).map(author -> {
+            boolean renamed = !Objects.equals(author.getName(), authorDetails.getName());
             author.setName(authorDetails.getName());
             author.setBio(authorDetails.getBio());
-            return ResponseEntity.ok(authorRepository.save(author));
+            Author saved = authorRepository.save(author);
+            catalogCache.evictAuthor(id);
+            if (renamed) {
+                bookService.reindexBooksOfAuthor(id);
+            }
+            return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAuthor(@PathVariable Integer id) {
         authorRepository.deleteById(id);
+        catalogCache.evictAuthor(id);
         return ResponseEntity.noContent().build();
     }
 }
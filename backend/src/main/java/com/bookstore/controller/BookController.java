@@ -1,13 +1,27 @@
 package com.bookstore.controller;
 
 import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetSearchResultDTO;
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.exception.ValidationException;
 import com.bookstore.model.Book;
+import com.bookstore.service.BookFacetIndex;
 import com.bookstore.service.BookService;
+import com.bookstore.service.CatalogExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/books")
@@ -16,9 +30,40 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    /**
+     * Keyset-paginated catalog listing; without a cursor this is the first page.
+     */
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<CursorPage<Book>> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookService.getBooksPage(cursor, size));
+    }
+
+    /**
+     * Full or incremental catalog dump streamed from a database cursor.
+     * Clients doing incremental pulls pass the previous response's X-Export-Started-At as updatedSince.
+     * An incremental pull has no deletions and no lookup renames; only a full dump reflects those.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+        String resolvedFormat = format.toLowerCase();
+        if (!CatalogExportService.isValidFormat(resolvedFormat)) {
+            throw new ValidationException("format must be csv or ndjson");
+        }
+        boolean csv = CatalogExportService.FORMAT_CSV.equals(resolvedFormat);
+        LocalDateTime startedAt = LocalDateTime.now();
+        StreamingResponseBody body = output -> catalogExportService.export(output, resolvedFormat, updatedSince);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, csv ? "text/csv; charset=UTF-8" : "application/x-ndjson")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books." + resolvedFormat + "\"")
+                .header("X-Export-Started-At", startedAt.toString())
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -45,13 +90,62 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String keyword) {
-        return ResponseEntity.ok(bookService.searchBooks(keyword));
+    public ResponseEntity<List<Book>> searchBooks(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
+        Page<Book> results = bookService.searchBooks(keyword, page, size, fuzzy);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                .body(results.getContent());
+    }
+
+    /**
+     * Keyword plus facet filters in one call; repeat a parameter to select several values of a facet.
+     */
+    @GetMapping("/search/faceted")
+    public ResponseEntity<FacetSearchResultDTO> facetedSearch(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) List<Integer> categoryId,
+            @RequestParam(required = false) List<Integer> authorId,
+            @RequestParam(required = false) List<Integer> publisherId,
+            @RequestParam(required = false) List<Integer> priceBucket,
+            @RequestParam(required = false) List<Integer> decade,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        Map<String, Collection<Integer>> filters = new HashMap<>();
+        putFilter(filters, BookFacetIndex.CATEGORY, categoryId);
+        putFilter(filters, BookFacetIndex.AUTHOR, authorId);
+        putFilter(filters, BookFacetIndex.PUBLISHER, publisherId);
+        putFilter(filters, BookFacetIndex.PRICE, priceBucket);
+        putFilter(filters, BookFacetIndex.DECADE, decade);
+        return ResponseEntity.ok(bookService.facetedSearch(keyword, fuzzy, filters, page, size));
+    }
+
+    private static void putFilter(Map<String, Collection<Integer>> filters, String facet, List<Integer> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, values);
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
     }
 
+    /**
+     * Keyset-paginated books of one category; without a cursor this is the first page.
+     */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Book>> getBooksByCategory(@PathVariable Integer categoryId) {
-        return ResponseEntity.ok(bookService.getBooksByCategory(categoryId));
+    public ResponseEntity<CursorPage<Book>> getBooksByCategory(
+            @PathVariable Integer categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookService.getBooksByCategoryPage(categoryId, cursor, size));
     }
 
     @GetMapping("/new/list")
@@ -60,12 +154,21 @@ public class BookController {
     }
 
     @GetMapping("/bestsellers/list")
-    public ResponseEntity<List<Book>> getBestsellers(@RequestParam(defaultValue = "4") int limit) {
-        return ResponseEntity.ok(bookService.getBestsellers(limit));
+    public ResponseEntity<List<Book>> getBestsellers(
+            @RequestParam(defaultValue = "4") int limit,
+            @RequestParam(defaultValue = "30d") String window,
+            @RequestParam(required = false) Integer categoryId) {
+        return ResponseEntity.ok(bookService.getBestsellers(window, categoryId, limit));
     }
 
+    /**
+     * Keyset-paginated books of one author; without a cursor this is the first page.
+     */
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<Book>> getBooksByAuthor(@PathVariable Integer authorId) {
-        return ResponseEntity.ok(bookService.getBooksByAuthor(authorId));
+    public ResponseEntity<CursorPage<Book>> getBooksByAuthor(
+            @PathVariable Integer authorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookService.getBooksByAuthorPage(authorId, cursor, size));
     }
 }
@@ -0,0 +1,52 @@
+package com.bookstore.controller;
+
+import com.bookstore.dto.ImportReportDTO;
+import com.bookstore.service.CatalogImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Bulk catalog import for admins. The request body is read as a stream, so uploads are not size-limited
+ * by the multipart settings and are never held in memory.
+ * Example: curl -X POST -H "Content-Type: text/csv" --data-binary @books.csv /api/admin/catalog/import
+ */
+@RestController
+@RequestMapping("/api/admin/catalog")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class CatalogController {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @PostMapping("/import")
+    public ResponseEntity<?> importCatalog(@RequestParam(required = false) String format, HttpServletRequest request) {
+        String resolvedFormat = format != null ? format.toLowerCase() : formatOf(request.getContentType());
+        if (resolvedFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Use format=csv or format=ndjson, or a text/csv or application/x-ndjson body"));
+        }
+        try {
+            ImportReportDTO report = catalogImportService.importCatalog(request.getInputStream(), resolvedFormat);
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read upload: " + e.getMessage()));
+        }
+    }
+
+    private static String formatOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String type = contentType.toLowerCase();
+        if (type.startsWith("text/csv")) {
+            return CatalogImportService.FORMAT_CSV;
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/ndjson")) {
+            return CatalogImportService.FORMAT_NDJSON;
+        }
+        return null;
+    }
+}
@@ -2,11 +2,14 @@ package com.bookstore.controller;
 
 import com.bookstore.model.Category;
 import com.bookstore.repository.CategoryRepository;
+import com.bookstore.service.BookService;
+import com.bookstore.service.CatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -16,15 +19,21 @@ public class CategoryController {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookService bookService;
+
     @GetMapping
     public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
+        List<Category> categories = catalogCache.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Category> getCategoryById(@PathVariable Integer id) {
-        return categoryRepository.findById(id)
+        return catalogCache.getCategory(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -32,6 +41,7 @@ public class CategoryController {
     @PostMapping
     public ResponseEntity<Category> createCategory(@RequestBody Category category) {
         Category savedCategory = categoryRepository.save(category);
+        catalogCache.evictCategory(savedCategory.getCategoryId());
         return ResponseEntity.ok(savedCategory);
     }
 
@@ -39,9 +49,14 @@ public class CategoryController {
     public ResponseEntity<Category> updateCategory(@PathVariable Integer id, @RequestBody Category category) {
         return categoryRepository.findById(id)
                 .map(existingCategory -> {
+                    boolean renamed = !Objects.equals(existingCategory.getName(), category.getName());
                     existingCategory.setName(category.getName());
                     existingCategory.setDescription(category.getDescription());
                     Category updatedCategory = categoryRepository.save(existingCategory);
+                    catalogCache.evictCategory(id);
+                    if (renamed) {
+                        bookService.reindexBooksOfCategory(id);
+                    }
                     return ResponseEntity.ok(updatedCategory);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -51,6 +66,7 @@ public class CategoryController {
     public ResponseEntity<Void> deleteCategory(@PathVariable Integer id) {
         if (categoryRepository.existsById(id)) {
             categoryRepository.deleteById(id);
+            catalogCache.evictCategory(id);
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
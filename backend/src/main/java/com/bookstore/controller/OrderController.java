@@ -1,12 +1,14 @@
 package com.bookstore.controller;
 
+import com.bookstore.exception.ConflictException;
+import com.bookstore.exception.ValidationException;
 import com.bookstore.model.Order;
+import com.bookstore.service.IdempotencyService;
 import com.bookstore.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,6 +20,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @GetMapping
     public ResponseEntity<List<Order>> getAllOrders() {
         return ResponseEntity.ok(orderService.getAllOrders());
@@ -30,18 +35,43 @@ public class OrderController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Without cursor and size this returns every order of the user (legacy behaviour);
+     * passing either switches to keyset pagination, newest first.
+     */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Integer userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<?> getOrdersByUserId(@PathVariable Integer userId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(defaultValue = "false") boolean includeItems) {
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(orderService.getOrdersByUserId(userId, includeItems));
+        }
+        return ResponseEntity.ok(orderService.getOrdersByUserPage(userId, cursor, size, includeItems));
     }
 
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<?> getUserOrderSummary(@PathVariable Integer userId) {
+        return ResponseEntity.ok(orderService.getUserSummary(userId));
+    }
+
+    /**
+     * A retry carrying the same Idempotency-Key gets the first response back instead of a second order.
+     */
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody Order order) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey,
+                                         @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String scope = idempotencyService.scope("orders", authorization,
+                order.getUserId() != null ? "user:" + order.getUserId() : null);
+        return idempotencyService.execute(scope, idempotencyKey, order, () -> placeOrder(order));
+    }
+
+    private ResponseEntity<?> placeOrder(Order order) {
         try {
             System.out.println("=== Creating Order ===");
             System.out.println("Order object: " + order);
             System.out.println("Order userId: " + order.getUserId());
-            System.out.println("Order totalAmount: " + order.getTotalAmount());
             System.out.println("Order shippingAddress: " + order.getShippingAddress());
             System.out.println("Order status: " + order.getStatus());
             
@@ -55,10 +85,11 @@ public class OrderController {
             // Check if user exists
             System.out.println("Checking if user exists with ID: " + order.getUserId());
             
-            if (order.getTotalAmount() == null || order.getTotalAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            // The total is computed server-side from catalog prices, so an order has to list what it buys
+            if (order.getItems() == null || order.getItems().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
-                error.put("error", "totalAmount must be greater than 0");
-                error.put("details", "Amount received: " + order.getTotalAmount());
+                error.put("error", "items are required");
+                error.put("details", "An order needs at least one item");
                 return ResponseEntity.badRequest().body(error);
             }
             
@@ -71,6 +102,14 @@ public class OrderController {
             Order createdOrder = orderService.createOrder(order);
             System.out.println("Order created with ID: " + createdOrder.getOrderId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        } catch (ConflictException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (ValidationException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             System.out.println("Error creating order: " + e.getMessage());
             e.printStackTrace();
@@ -129,6 +168,10 @@ public class OrderController {
         try {
             Order cancelledOrder = orderService.cancelOrder(id);
             return ResponseEntity.ok(cancelledOrder);
+        } catch (ConflictException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
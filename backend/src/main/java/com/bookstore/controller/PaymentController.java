@@ -1,6 +1,8 @@
 package com.bookstore.controller;
 
 import com.bookstore.model.Payment;
+import com.bookstore.service.IdempotencyService;
+import com.bookstore.service.OrderService;
 import com.bookstore.service.PaymentService;
 import com.bookstore.service.VNPayService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +26,12 @@ public class PaymentController {
     @Autowired
     private VNPayService vnPayService;
 
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/create-vnpay-url")
     public ResponseEntity<Map<String, Object>> createVNPayUrl(@RequestBody Map<String, Object> request) throws UnsupportedEncodingException {
         
@@ -78,8 +86,14 @@ public class PaymentController {
                     payment.setStatus("completed");
                     
                     paymentService.createPayment(payment);
+                    boolean stockKept = orderService.confirmPayment(payment.getOrderId());
+                    if (!stockKept) {
+                        // Paid after the reservation expired; the order was cancelled and needs a refund
+                        logger.warning("Payment received for expired order " + orderId);
+                    }
                     
                     response.put("success", true);
+                    response.put("reservationExpired", !stockKept);
                     response.put("message", "Thanh toán thành công");
                     response.put("orderId", orderId);
                     response.put("transactionId", transactionId);
@@ -107,8 +121,14 @@ public class PaymentController {
     }
 
     @PostMapping
-    public ResponseEntity<Payment> createPayment(@RequestBody Payment payment) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(paymentService.createPayment(payment));
+    public ResponseEntity<?> createPayment(@RequestBody Payment payment,
+                                           @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey,
+                                           @RequestHeader(value = "Authorization", required = false) String authorization) {
+        // A payment belongs to its order's user, so without a token the order scopes the key
+        String scope = idempotencyService.scope("payments", authorization,
+                payment.getOrderId() != null ? "order:" + payment.getOrderId() : null);
+        return idempotencyService.execute(scope, idempotencyKey, payment,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(paymentService.createPayment(payment)));
     }
 
     @GetMapping
@@ -2,11 +2,14 @@ package com.bookstore.controller;
 
 import com.bookstore.model.Publisher;
 import com.bookstore.repository.PublisherRepository;
+import com.bookstore.service.BookService;
+import com.bookstore.service.CatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/publishers")
@@ -15,35 +18,50 @@ public class PublisherController {
     @Autowired
     private PublisherRepository publisherRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookService bookService;
+
     @GetMapping
     public ResponseEntity<List<Publisher>> getAllPublishers() {
-        return ResponseEntity.ok(publisherRepository.findAll());
+        return ResponseEntity.ok(catalogCache.getAllPublishers());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Publisher> getPublisherById(@PathVariable Integer id) {
-        return publisherRepository.findById(id)
+        return catalogCache.getPublisher(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public ResponseEntity<Publisher> createPublisher(@RequestBody Publisher publisher) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(publisherRepository.save(publisher));
+        Publisher saved = publisherRepository.save(publisher);
+        catalogCache.evictPublisher(saved.getPublisherId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Publisher> updatePublisher(@PathVariable Integer id, @RequestBody Publisher publisherDetails) {
         return publisherRepository.findById(id).map(publisher -> {
+            boolean renamed = !Objects.equals(publisher.getName(), publisherDetails.getName());
             publisher.setName(publisherDetails.getName());
             publisher.setContactInfo(publisherDetails.getContactInfo());
-            return ResponseEntity.ok(publisherRepository.save(publisher));
+            Publisher saved = publisherRepository.save(publisher);
+            catalogCache.evictPublisher(id);
+            if (renamed) {
+                bookService.reindexBooksOfPublisher(id);
+            }
+            return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePublisher(@PathVariable Integer id) {
         publisherRepository.deleteById(id);
+        catalogCache.evictPublisher(id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -2,10 +2,12 @@ package com.bookstore.controller;
 
 import com.bookstore.model.Review;
 import com.bookstore.repository.ReviewRepository;
+import com.bookstore.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,6 +18,9 @@ public class ReviewController {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ReviewService reviewService;
+
     @GetMapping
     public ResponseEntity<List<Review>> getAllReviews() {
         try {
@@ -39,11 +44,27 @@ public class ReviewController {
         }
     }
 
+    @PostMapping
+    public ResponseEntity<?> createReview(@RequestBody Review review) {
+        try {
+            if (review.getBook() == null || review.getBook().getBookId() == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Thiếu sách được đánh giá"));
+            }
+            if (!ReviewService.isValidRating(review.getRating())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Đánh giá phải từ 1 đến 5 sao"));
+            }
+            review.setReviewId(null);
+            return ResponseEntity.status(201).body(reviewService.createReview(review));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteReview(@PathVariable Integer id) {
         try {
-            if (reviewRepository.existsById(id)) {
-                reviewRepository.deleteById(id);
+            if (reviewService.deleteReview(id)) {
                 return ResponseEntity.ok().build();
             }
             return ResponseEntity.notFound().build();
@@ -56,17 +77,11 @@ public class ReviewController {
     @PutMapping("/{id}")
     public ResponseEntity<?> updateReview(@PathVariable Integer id, @RequestBody Review reviewDetails) {
         try {
-            return reviewRepository.findById(id)
-                    .map(review -> {
-                        if (reviewDetails.getRating() != null) {
-                            review.setRating(reviewDetails.getRating());
-                        }
-                        if (reviewDetails.getComment() != null) {
-                            review.setComment(reviewDetails.getComment());
-                        }
-                        Review updated = reviewRepository.save(review);
-                        return ResponseEntity.ok(updated);
-                    })
+            if (reviewDetails.getRating() != null && !ReviewService.isValidRating(reviewDetails.getRating())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Đánh giá phải từ 1 đến 5 sao"));
+            }
+            return reviewService.updateReview(id, reviewDetails.getRating(), reviewDetails.getComment())
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             e.printStackTrace();
@@ -79,20 +94,17 @@ public class ReviewController {
             @RequestParam(required = false) Integer rating,
             @RequestParam(required = false) Integer bookId) {
         try {
-            List<Review> reviews = reviewRepository.findAll();
-            
-            if (rating != null) {
-                reviews = reviews.stream()
-                        .filter(r -> r.getRating().equals(rating))
-                        .toList();
-            }
-            
-            if (bookId != null) {
-                reviews = reviews.stream()
-                        .filter(r -> r.getBook() != null && r.getBook().getBookId().equals(bookId))
-                        .toList();
+            // Filter in the database so a book's reviews are only loaded when asked for
+            List<Review> reviews;
+            if (bookId != null && rating != null) {
+                reviews = reviewRepository.findByBookBookIdAndRating(bookId, rating);
+            } else if (bookId != null) {
+                reviews = reviewRepository.findByBookBookId(bookId);
+            } else if (rating != null) {
+                reviews = reviewRepository.findByRating(rating);
+            } else {
+                reviews = reviewRepository.findAll();
             }
-            
             return ResponseEntity.ok(reviews);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1,8 +1,10 @@
 package com.bookstore.controller;
 
+import com.bookstore.dto.CursorPage;
 import com.bookstore.dto.PasswordChangeRequest;
 import com.bookstore.model.User;
 import com.bookstore.model.Order;
+import com.bookstore.model.UserOrderSummary;
 import com.bookstore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -72,8 +74,20 @@ public class UserController {
         return ResponseEntity.ok(userService.searchUsers(keyword));
     }
 
+    /**
+     * Keyset-paginated order history, newest first; pass nextCursor back as cursor for the next page.
+     */
     @GetMapping("/{id}/orders")
-    public ResponseEntity<List<Order>> getUserOrders(@PathVariable Integer id) {
-        return ResponseEntity.ok(userService.getUserOrders(id));
+    public ResponseEntity<CursorPage<Order>> getUserOrders(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean includeItems) {
+        return ResponseEntity.ok(userService.getUserOrders(id, cursor, size, includeItems));
+    }
+
+    @GetMapping("/{id}/orders/summary")
+    public ResponseEntity<UserOrderSummary> getUserOrderSummary(@PathVariable Integer id) {
+        return ResponseEntity.ok(userService.getUserOrderSummary(id));
     }
 }
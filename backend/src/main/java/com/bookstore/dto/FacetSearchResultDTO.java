@@ -0,0 +1,38 @@
+package com.bookstore.dto;
+
+import com.bookstore.model.Book;
+import java.util.List;
+import java.util.Map;
+
+public class FacetSearchResultDTO {
+    private List<Book> books;
+    private int total;
+    private int page;
+    private int size;
+    private Map<String, List<FacetCountDTO>> facets;
+
+    public FacetSearchResultDTO() {}
+
+    public FacetSearchResultDTO(List<Book> books, int total, int page, int size, Map<String, List<FacetCountDTO>> facets) {
+        this.books = books;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.facets = facets;
+    }
+
+    public List<Book> getBooks() { return books; }
+    public void setBooks(List<Book> books) { this.books = books; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public Map<String, List<FacetCountDTO>> getFacets() { return facets; }
+    public void setFacets(Map<String, List<FacetCountDTO>> facets) { this.facets = facets; }
+}
@@ -0,0 +1,24 @@
+package com.bookstore.dto;
+
+public class SuggestionDTO {
+    private String type;
+    private Integer id;
+    private String text;
+
+    public SuggestionDTO() {}
+
+    public SuggestionDTO(String type, Integer id, String text) {
+        this.type = type;
+        this.id = id;
+        this.text = text;
+    }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+}
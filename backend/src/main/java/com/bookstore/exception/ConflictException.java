@@ -0,0 +1,15 @@
+package com.bookstore.exception;
+
+/**
+ * The request is valid but clashes with the current state, e.g. not enough stock left
+ * or a concurrent update got there first.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -47,10 +47,34 @@ public class Book {
     @JoinColumn(name = "publisher_id")
     private Publisher publisher;
 
-    @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Reviews are only loaded on demand; catalog responses use the rating summary below
+    @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Review> reviews;
 
+    // Rating summary, kept in step with the reviews table by ReviewService. Only its atomic UPDATEs write
+    // these columns, so a full-row save of a stale Book (e.g. an admin edit) cannot overwrite them
+    @Column(name = "rating_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_total", nullable = false, updatable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long ratingTotal = 0L;
+
+    @Column(name = "rating_1_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer rating5Count = 0;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -122,6 +146,33 @@ public class Book {
     public List<Review> getReviews() { return reviews; }
     public void setReviews(List<Review> reviews) { this.reviews = reviews; }
 
+    public Integer getRatingCount() { return ratingCount; }
+    public void setRatingCount(Integer ratingCount) { this.ratingCount = ratingCount; }
+
+    @JsonIgnore
+    public Long getRatingTotal() { return ratingTotal; }
+    public void setRatingTotal(Long ratingTotal) { this.ratingTotal = ratingTotal; }
+
+    public Double getAverageRating() {
+        if (ratingCount == null || ratingCount == 0 || ratingTotal == null) {
+            return 0.0;
+        }
+        return Math.round(ratingTotal * 100.0 / ratingCount) / 100.0;
+    }
+
+    /**
+     * Number of 1..5 star reviews, indexed by stars - 1.
+     */
+    public int[] getRatingHistogram() {
+        return new int[] {
+            rating1Count == null ? 0 : rating1Count,
+            rating2Count == null ? 0 : rating2Count,
+            rating3Count == null ? 0 : rating3Count,
+            rating4Count == null ? 0 : rating4Count,
+            rating5Count == null ? 0 : rating5Count
+        };
+    }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
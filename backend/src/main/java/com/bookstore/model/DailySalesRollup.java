@@ -0,0 +1,89 @@
+package com.bookstore.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Sales per day, category and order status, maintained by SalesRollupService as orders change so reports
+ * read a few rows per day instead of the orders. Rows with category 0 hold whole-order totals; rows with
+ * a real category hold only that category's lines. Statuses are stored lower-case.
+ */
+@Entity
+@Table(name = "daily_sales_rollup")
+@IdClass(DailySalesRollup.Key.class)
+public class DailySalesRollup {
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    @Id
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "units", nullable = false)
+    private Long units = 0L;
+
+    @Column(name = "revenue", nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public DailySalesRollup() {}
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public Integer getCategoryId() { return categoryId; }
+    public void setCategoryId(Integer categoryId) { this.categoryId = categoryId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+
+    public Long getUnits() { return units; }
+    public void setUnits(Long units) { this.units = units; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Integer categoryId;
+        private String status;
+
+        public Key() {}
+
+        public Key(LocalDate day, Integer categoryId, String status) {
+            this.day = day;
+            this.categoryId = categoryId;
+            this.status = status;
+        }
+
+        public LocalDate getDay() { return day; }
+        public Integer getCategoryId() { return categoryId; }
+        public String getStatus() { return status; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return Objects.equals(day, other.day) && Objects.equals(categoryId, other.categoryId)
+                    && Objects.equals(status, other.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, categoryId, status);
+        }
+    }
+}
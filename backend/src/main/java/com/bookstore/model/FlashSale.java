@@ -0,0 +1,47 @@
+package com.bookstore.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A book currently sold in flash-sale mode. Together with order_details this is enough to rebuild the
+ * in-memory stock counter after a restart: remaining = initialStock - units ordered after startDetailId.
+ */
+@Entity
+@Table(name = "flash_sales")
+public class FlashSale {
+    @Id
+    @Column(name = "book_id")
+    private Integer bookId;
+
+    @Column(name = "initial_stock", nullable = false)
+    private Integer initialStock;
+
+    // Highest order_details.detail_id when the sale started; later lines belong to the sale
+    @Column(name = "start_detail_id", nullable = false)
+    private Integer startDetailId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    public FlashSale() {}
+
+    public FlashSale(Integer bookId, Integer initialStock, Integer startDetailId, LocalDateTime startedAt) {
+        this.bookId = bookId;
+        this.initialStock = initialStock;
+        this.startDetailId = startDetailId;
+        this.startedAt = startedAt;
+    }
+
+    public Integer getBookId() { return bookId; }
+    public void setBookId(Integer bookId) { this.bookId = bookId; }
+
+    public Integer getInitialStock() { return initialStock; }
+    public void setInitialStock(Integer initialStock) { this.initialStock = initialStock; }
+
+    public Integer getStartDetailId() { return startDetailId; }
+    public void setStartDetailId(Integer startDetailId) { this.startDetailId = startDetailId; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+}
@@ -4,9 +4,16 @@ import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Keyset order history per user, newest first
+    @Index(name = "idx_orders_user_date", columnList = "user_id, order_date, order_id"),
+    // Date-range scans of orders; status and amount are included so aggregates never read the table rows
+    @Index(name = "idx_orders_date_status", columnList = "order_date, status, total_amount")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,7 +34,8 @@ public class Order {
     private String status = "pending";
 
     @Column(name = "total_amount", nullable = false)
-    @JsonProperty("totalAmount")
+    // Always computed from the catalog prices of the items; a total in the request body is ignored
+    @JsonProperty(value = "totalAmount", access = JsonProperty.Access.READ_ONLY)
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
     @Column(name = "shipping_address", nullable = false, columnDefinition = "TEXT")
@@ -38,6 +46,16 @@ public class Order {
     @JsonProperty("cancellationReason")
     private String cancellationReason;
 
+    // Set while an unpaid online order holds its stock; the order is cancelled once this passes
+    @Column(name = "reserved_until")
+    @JsonProperty("reservedUntil")
+    private LocalDateTime reservedUntil;
+
+    // Bumped by every conditional update in OrderRepository; entity saves never write it
+    @Column(name = "version", nullable = false, updatable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @JsonProperty("version")
+    private Long version = 0L;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @JsonProperty("createdAt")
     private LocalDateTime createdAt;
@@ -46,6 +64,16 @@ public class Order {
     @JsonProperty("updatedAt")
     private LocalDateTime updatedAt;
 
+    // Line items sent with a new order; stored as order_details rows, not as a column
+    @Transient
+    @JsonProperty("items")
+    private List<OrderDetail> items = new ArrayList<>();
+
+    // How the customer will pay (COD or VNPay); only read when the order is placed
+    @Transient
+    @JsonProperty(value = "paymentMethod", access = JsonProperty.Access.WRITE_ONLY)
+    private String paymentMethod;
+
     public Order() {}
 
     public Order(Integer orderId, Integer userId, LocalDateTime orderDate, String status, BigDecimal totalAmount, String shippingAddress) {
@@ -96,9 +124,21 @@ public class Order {
     public String getCancellationReason() { return cancellationReason; }
     public void setCancellationReason(String cancellationReason) { this.cancellationReason = cancellationReason; }
 
+    public LocalDateTime getReservedUntil() { return reservedUntil; }
+    public void setReservedUntil(LocalDateTime reservedUntil) { this.reservedUntil = reservedUntil; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public List<OrderDetail> getItems() { return items; }
+    public void setItems(List<OrderDetail> items) { this.items = items; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
 }
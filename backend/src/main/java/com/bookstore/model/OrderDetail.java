@@ -23,6 +23,16 @@ public class OrderDetail {
     @Column(name = "unit_price", nullable = false)
     private BigDecimal unitPrice;
 
+    // Snapshot of the book at purchase time, so the order still reads the same after a rename or delete
+    @Column(name = "book_title")
+    private String bookTitle;
+
+    @Column(name = "book_isbn")
+    private String bookIsbn;
+
+    @Column(name = "cover_image_url")
+    private String coverImageUrl;
+
     public OrderDetail() {}
 
     public OrderDetail(Integer detailId, Integer orderId, Integer bookId, Integer quantity, BigDecimal unitPrice) {
@@ -47,4 +57,13 @@ public class OrderDetail {
 
     public BigDecimal getUnitPrice() { return unitPrice; }
     public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+
+    public String getBookIsbn() { return bookIsbn; }
+    public void setBookIsbn(String bookIsbn) { this.bookIsbn = bookIsbn; }
+
+    public String getCoverImageUrl() { return coverImageUrl; }
+    public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
 }
@@ -0,0 +1,44 @@
+package com.bookstore.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-user order totals, kept up to date by OrderService on every order write instead of
+ * aggregating the orders table on each read. Cancelled orders count towards neither total.
+ */
+@Entity
+@Table(name = "user_order_summaries")
+public class UserOrderSummary {
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount = 0;
+
+    @Column(name = "total_spent", nullable = false)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "last_order_date")
+    private LocalDateTime lastOrderDate;
+
+    public UserOrderSummary() {}
+
+    public UserOrderSummary(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getUserId() { return userId; }
+    public void setUserId(Integer userId) { this.userId = userId; }
+
+    public Integer getOrderCount() { return orderCount; }
+    public void setOrderCount(Integer orderCount) { this.orderCount = orderCount; }
+
+    public BigDecimal getTotalSpent() { return totalSpent; }
+    public void setTotalSpent(BigDecimal totalSpent) { this.totalSpent = totalSpent; }
+
+    public LocalDateTime getLastOrderDate() { return lastOrderDate; }
+    public void setLastOrderDate(LocalDateTime lastOrderDate) { this.lastOrderDate = lastOrderDate; }
+}
@@ -1,10 +1,17 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +25,109 @@ public interface BookRepository extends JpaRepository<Book, Integer> {
     List<Book> searchBooks(@Param("keyword") String keyword);
 
     List<Book> findByAuthor(com.bookstore.model.Author author);
+
+    List<Book> findByCategoryCategoryId(Integer categoryId, Pageable pageable);
+
+    // Keyset pagination: callers pass the last bookId they saw and a Pageable that only carries the limit
+    @Query("SELECT b FROM Book b WHERE b.bookId > :afterId ORDER BY b.bookId ASC")
+    List<Book> findPageAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.category.categoryId = :categoryId AND b.bookId > :afterId ORDER BY b.bookId ASC")
+    List<Book> findPageByCategoryAfter(@Param("categoryId") Integer categoryId, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.author.authorId = :authorId AND b.bookId > :afterId ORDER BY b.bookId ASC")
+    List<Book> findPageByAuthorAfter(@Param("authorId") Integer authorId, @Param("afterId") Integer afterId, Pageable pageable);
+
+    // [bookId, categoryId] for every categorized book
+    @Query("SELECT b.bookId, b.category.categoryId FROM Book b WHERE b.category IS NOT NULL")
+    List<Object[]> findAllCategoryIds();
+
+    // [bookId, categoryId] for the categorized books among bookIds
+    @Query("SELECT b.bookId, b.category.categoryId FROM Book b WHERE b.bookId IN :bookIds AND b.category IS NOT NULL")
+    List<Object[]> findCategoryIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    // [bookId, categoryId, authorId] for the given books; ids of a missing category or author are null
+    @Query("SELECT b.bookId, c.categoryId, a.authorId FROM Book b LEFT JOIN b.category c LEFT JOIN b.author a WHERE b.bookId IN :bookIds")
+    List<Object[]> findCategoryAndAuthorIds(@Param("bookIds") Collection<Integer> bookIds);
+
+    // Faceted search while the facet index is still being built. A facet filter applies only when its
+    // any* flag is set (its list must still be non-empty); the price bounds are BookFacetIndex.PRICE_BOUNDS.
+    @Query("SELECT b FROM Book b LEFT JOIN b.category c LEFT JOIN b.author a LEFT JOIN b.publisher p " +
+           "WHERE (b.title LIKE %:keyword% OR b.description LIKE %:keyword%) " +
+           "AND (:anyCategory = false OR c.categoryId IN :categoryIds) " +
+           "AND (:anyAuthor = false OR a.authorId IN :authorIds) " +
+           "AND (:anyPublisher = false OR p.publisherId IN :publisherIds) " +
+           "AND (:anyPrice = false OR (CASE WHEN b.price < :bound1 THEN 0 WHEN b.price < :bound2 THEN 1 " +
+           "WHEN b.price < :bound3 THEN 2 ELSE 3 END) IN :priceBuckets) " +
+           "AND (:anyDecade = false OR FLOOR(b.publicationYear / 10) * 10 IN :decades)")
+    Page<Book> findByFacetFilters(@Param("keyword") String keyword,
+                                  @Param("anyCategory") boolean anyCategory, @Param("categoryIds") Collection<Integer> categoryIds,
+                                  @Param("anyAuthor") boolean anyAuthor, @Param("authorIds") Collection<Integer> authorIds,
+                                  @Param("anyPublisher") boolean anyPublisher, @Param("publisherIds") Collection<Integer> publisherIds,
+                                  @Param("anyPrice") boolean anyPrice, @Param("priceBuckets") Collection<Integer> priceBuckets,
+                                  @Param("bound1") BigDecimal bound1, @Param("bound2") BigDecimal bound2, @Param("bound3") BigDecimal bound3,
+                                  @Param("anyDecade") boolean anyDecade, @Param("decades") Collection<Integer> decades,
+                                  Pageable pageable);
+
+    @Query("SELECT b.bookId FROM Book b WHERE b.category.categoryId = :categoryId")
+    List<Integer> findIdsByCategoryId(@Param("categoryId") Integer categoryId);
+
+    @Query("SELECT b.bookId FROM Book b WHERE b.author.authorId = :authorId")
+    List<Integer> findIdsByAuthorId(@Param("authorId") Integer authorId);
+
+    @Query("SELECT b.bookId FROM Book b WHERE b.publisher.publisherId = :publisherId")
+    List<Integer> findIdsByPublisherId(@Param("publisherId") Integer publisherId);
+
+    // Atomic rating summary maintenance: delta is +1 when a review with these stars appears, -1 when it goes away
+    @Modifying
+    @Query("UPDATE Book b SET b.ratingCount = b.ratingCount + :delta, b.ratingTotal = b.ratingTotal + :delta * :stars, " +
+           "b.rating1Count = b.rating1Count + CASE WHEN :stars = 1 THEN :delta ELSE 0 END, " +
+           "b.rating2Count = b.rating2Count + CASE WHEN :stars = 2 THEN :delta ELSE 0 END, " +
+           "b.rating3Count = b.rating3Count + CASE WHEN :stars = 3 THEN :delta ELSE 0 END, " +
+           "b.rating4Count = b.rating4Count + CASE WHEN :stars = 4 THEN :delta ELSE 0 END, " +
+           "b.rating5Count = b.rating5Count + CASE WHEN :stars = 5 THEN :delta ELSE 0 END, b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.bookId = :bookId")
+    int adjustRating(@Param("bookId") Integer bookId, @Param("stars") int stars, @Param("delta") int delta);
+
+    // Move one review from the fromStars bucket to toStars; matches no row when that bucket is already empty
+    @Modifying
+    @Query("UPDATE Book b SET b.ratingTotal = b.ratingTotal + :toStars - :fromStars, " +
+           "b.rating1Count = b.rating1Count + CASE WHEN :toStars = 1 THEN 1 ELSE 0 END - CASE WHEN :fromStars = 1 THEN 1 ELSE 0 END, " +
+           "b.rating2Count = b.rating2Count + CASE WHEN :toStars = 2 THEN 1 ELSE 0 END - CASE WHEN :fromStars = 2 THEN 1 ELSE 0 END, " +
+           "b.rating3Count = b.rating3Count + CASE WHEN :toStars = 3 THEN 1 ELSE 0 END - CASE WHEN :fromStars = 3 THEN 1 ELSE 0 END, " +
+           "b.rating4Count = b.rating4Count + CASE WHEN :toStars = 4 THEN 1 ELSE 0 END - CASE WHEN :fromStars = 4 THEN 1 ELSE 0 END, " +
+           "b.rating5Count = b.rating5Count + CASE WHEN :toStars = 5 THEN 1 ELSE 0 END - CASE WHEN :fromStars = 5 THEN 1 ELSE 0 END, " +
+           "b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.bookId = :bookId AND (CASE :fromStars WHEN 1 THEN b.rating1Count WHEN 2 THEN b.rating2Count " +
+           "WHEN 3 THEN b.rating3Count WHEN 4 THEN b.rating4Count ELSE b.rating5Count END) > 0")
+    int moveRating(@Param("bookId") Integer bookId, @Param("fromStars") int fromStars, @Param("toStars") int toStars);
+
+    // Recompute every summary from the reviews table in one statement
+    @Modifying
+    @Query(value = "UPDATE books b LEFT JOIN (" +
+                   "SELECT book_id, COUNT(*) AS cnt, SUM(rating) AS total, " +
+                   "SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 " +
+                   "FROM reviews GROUP BY book_id) r ON r.book_id = b.book_id " +
+                   "SET b.rating_count = COALESCE(r.cnt, 0), b.rating_total = COALESCE(r.total, 0), " +
+                   "b.rating_1_count = COALESCE(r.r1, 0), b.rating_2_count = COALESCE(r.r2, 0), b.rating_3_count = COALESCE(r.r3, 0), " +
+                   "b.rating_4_count = COALESCE(r.r4, 0), b.rating_5_count = COALESCE(r.r5, 0)",
+           nativeQuery = true)
+    int recomputeRatingSummaries();
+
+    // Conditional stock decrement: matches no row (returns 0) when fewer than qty copies are left,
+    // so concurrent checkouts can never push stock below zero. Like every stock and rating update here it
+    // also bumps updatedAt, which incremental catalog exports filter on
+    @Modifying
+    @Query("UPDATE Book b SET b.stockQuantity = b.stockQuantity - :qty, b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.bookId = :bookId AND b.stockQuantity >= :qty")
+    int decrementStock(@Param("bookId") Integer bookId, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.stockQuantity = COALESCE(b.stockQuantity, 0) + :qty, b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.bookId = :bookId")
+    int incrementStock(@Param("bookId") Integer bookId, @Param("qty") int qty);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.bookId = :bookId")
+    Optional<Book> findByIdForUpdate(@Param("bookId") Integer bookId);
 }
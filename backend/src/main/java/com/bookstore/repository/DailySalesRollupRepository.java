@@ -0,0 +1,53 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.DailySalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, DailySalesRollup.Key> {
+    // Whole-order totals per day and status in an inclusive range: [day, status, orders, revenue]
+    @Query("SELECT r.day, r.status, r.orderCount, r.revenue FROM DailySalesRollup r " +
+           "WHERE r.categoryId = 0 AND r.day >= :start AND r.day <= :end")
+    List<Object[]> findOrderTotals(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // Whole-order totals per status over all days: [status, orders, revenue]
+    @Query("SELECT r.status, SUM(r.orderCount), SUM(r.revenue) FROM DailySalesRollup r WHERE r.categoryId = 0 GROUP BY r.status")
+    List<Object[]> sumOrderTotalsByStatus();
+
+    // Units sold per category name in an inclusive range, most sold first: [name, units]
+    @Query("SELECT c.name, SUM(r.units) FROM DailySalesRollup r, Category c " +
+           "WHERE c.categoryId = r.categoryId AND r.day >= :start AND r.day <= :end " +
+           "GROUP BY c.name ORDER BY SUM(r.units) DESC, c.name")
+    List<Object[]> sumUnitsByCategory(@Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sales_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recompute the whole-order rows from the orders table; run after deleteAllRows in the same transaction.
+    // Both recompute statements stick to standard SQL (CAST rather than DATE()) so they also run on H2
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (day, category_id, status, order_count, units, revenue) " +
+                   "SELECT CAST(o.order_date AS DATE), 0, LOWER(o.status), COUNT(*), COALESCE(SUM(u.units), 0), SUM(o.total_amount) " +
+                   "FROM orders o LEFT JOIN (SELECT order_id, SUM(quantity) AS units FROM order_details GROUP BY order_id) u " +
+                   "ON u.order_id = o.order_id " +
+                   "GROUP BY CAST(o.order_date AS DATE), LOWER(o.status)", nativeQuery = true)
+    int insertOrderTotals();
+
+    // Recompute the per-category rows from the order lines; lines of uncategorized or deleted books are left out
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (day, category_id, status, order_count, units, revenue) " +
+                   "SELECT CAST(o.order_date AS DATE), b.category_id, LOWER(o.status), COUNT(DISTINCT o.order_id), " +
+                   "SUM(d.quantity), SUM(d.quantity * d.unit_price) " +
+                   "FROM orders o JOIN order_details d ON d.order_id = o.order_id JOIN books b ON b.book_id = d.book_id " +
+                   "WHERE b.category_id IS NOT NULL " +
+                   "GROUP BY CAST(o.order_date AS DATE), b.category_id, LOWER(o.status)", nativeQuery = true)
+    int insertCategoryTotals();
+}
@@ -0,0 +1,9 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.FlashSale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Integer> {
+}
@@ -2,10 +2,43 @@ package com.bookstore.repository;
 
 import com.bookstore.model.OrderDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Integer> {
     List<OrderDetail> findByOrderId(Integer orderId);
+
+    List<OrderDetail> findByOrderIdIn(Collection<Integer> orderIds);
+
+    // Fill the book snapshot on lines written before it existed; lines whose book is gone keep NULL
+    @Modifying
+    @Query(value = "UPDATE order_details d JOIN books b ON b.book_id = d.book_id " +
+                   "SET d.book_title = b.title, d.book_isbn = b.isbn, d.cover_image_url = b.cover_image_url " +
+                   "WHERE d.book_title IS NULL", nativeQuery = true)
+    int backfillBookSnapshots();
+
+    // Units sold per book, used to seed the in-memory bestseller counters: [bookId, units]
+    @Query(value = "SELECT d.book_id, SUM(d.quantity) FROM order_details d JOIN orders o ON o.order_id = d.order_id " +
+                   "WHERE o.status <> :excludedStatus GROUP BY d.book_id", nativeQuery = true)
+    List<Object[]> sumUnitsByBook(@Param("excludedStatus") String excludedStatus);
+
+    // Units sold per book and day since a date: [bookId, day, units]
+    @Query(value = "SELECT d.book_id, DATE(o.order_date), SUM(d.quantity) FROM order_details d JOIN orders o ON o.order_id = d.order_id " +
+                   "WHERE o.status <> :excludedStatus AND o.order_date >= :since GROUP BY d.book_id, DATE(o.order_date)", nativeQuery = true)
+    List<Object[]> sumUnitsByBookAndDay(@Param("since") LocalDateTime since, @Param("excludedStatus") String excludedStatus);
+
+    @Query(value = "SELECT COALESCE(MAX(detail_id), 0) FROM order_details", nativeQuery = true)
+    int findMaxDetailId();
+
+    // Units of one book on order lines written after a given detail id, for flash-sale reconciliation
+    @Query(value = "SELECT COALESCE(SUM(d.quantity), 0) FROM order_details d JOIN orders o ON o.order_id = d.order_id " +
+                   "WHERE d.book_id = :bookId AND d.detail_id > :afterDetailId AND o.status <> :excludedStatus", nativeQuery = true)
+    long sumUnitsAfter(@Param("bookId") Integer bookId, @Param("afterDetailId") Integer afterDetailId,
+                       @Param("excludedStatus") String excludedStatus);
 }
@@ -1,11 +1,55 @@
 package com.bookstore.repository;
 
 import com.bookstore.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByUserId(Integer userId);
+
+    List<Order> findByReservedUntilIsNotNull();
+
+    // Keyset pages of a user's orders, newest first, served by idx_orders_user_date
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findFirstPageByUser(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId AND (o.orderDate < :orderDate " +
+           "OR (o.orderDate = :orderDate AND o.orderId < :orderId)) ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findPageByUserBefore(@Param("userId") Integer userId, @Param("orderDate") LocalDateTime orderDate,
+                                     @Param("orderId") Integer orderId, Pageable pageable);
+
+    // Optimistic write of an order read at :version. Matches nothing if anyone changed it since.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.totalAmount = :totalAmount, o.shippingAddress = :shippingAddress, " +
+           "o.cancellationReason = :reason, o.reservedUntil = :reservedUntil, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.orderId = :orderId AND o.version = :version")
+    int updateIfVersion(@Param("orderId") Integer orderId, @Param("version") long version, @Param("status") String status,
+                        @Param("totalAmount") BigDecimal totalAmount, @Param("shippingAddress") String shippingAddress,
+                        @Param("reason") String reason, @Param("reservedUntil") LocalDateTime reservedUntil,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Order o WHERE o.orderId = :orderId AND o.version = :version")
+    int deleteIfVersion(@Param("orderId") Integer orderId, @Param("version") long version);
+
+    // Payment arrived: keep the stock for good. Matches nothing if the reservation already expired.
+    @Modifying
+    @Query("UPDATE Order o SET o.reservedUntil = NULL, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.orderId = :orderId AND o.status = 'pending' AND o.reservedUntil IS NOT NULL")
+    int confirmReservation(@Param("orderId") Integer orderId, @Param("now") LocalDateTime now);
+
+    // Reservation ran out: cancel the order. Matches nothing if the payment won the race.
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'cancelled', o.reservedUntil = NULL, o.cancellationReason = :reason, o.updatedAt = :now, " +
+           "o.version = o.version + 1 " +
+           "WHERE o.orderId = :orderId AND o.status = 'pending' AND o.reservedUntil IS NOT NULL AND o.reservedUntil <= :now")
+    int expireReservation(@Param("orderId") Integer orderId, @Param("reason") String reason, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,12 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.OrderStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+    // Served by idx_order_status_events_order
+    List<OrderStatusEvent> findByOrderIdOrderByEventIdAsc(Integer orderId);
+}
@@ -26,6 +26,8 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
      * Task 2.2.3: Filter payments by status
      */
     List<Payment> findByStatus(String status);
+
+    long countByStatus(String status);
     
     /**
      * Task 2.2.1: Get all payments with filters
@@ -3,12 +3,29 @@ package com.bookstore.repository;
 import com.bookstore.model.Review;
 import com.bookstore.model.Book;
 import com.bookstore.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
     List<Review> findByBook(Book book);
     List<Review> findByUser(User user);
+    List<Review> findByBookBookId(Integer bookId);
+    List<Review> findByBookBookIdAndRating(Integer bookId, Integer rating);
+    List<Review> findByRating(Integer rating);
+
+    // One row: [reviews, average rating or null when there are none]
+    @Query("SELECT COUNT(r), AVG(r.rating) FROM Review r")
+    List<Object[]> countAndAverageRating();
+
+    // Serializes concurrent edits and deletes of one review, so each sees the rating the other left behind
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.reviewId = :reviewId")
+    Optional<Review> findByIdForUpdate(@Param("reviewId") Integer reviewId);
 }
@@ -0,0 +1,37 @@
+package com.bookstore.repository;
+
+import com.bookstore.model.UserOrderSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummary, Integer> {
+    // Atomic upsert of one order's effect; orderDate only ever moves last_order_date forward
+    @Modifying
+    @Query(value = "INSERT INTO user_order_summaries (user_id, order_count, total_spent, last_order_date) " +
+                   "VALUES (:userId, :countDelta, :spentDelta, :orderDate) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+                   "total_spent = total_spent + VALUES(total_spent), " +
+                   "last_order_date = GREATEST(COALESCE(last_order_date, VALUES(last_order_date)), VALUES(last_order_date))",
+           nativeQuery = true)
+    int applyDelta(@Param("userId") Integer userId, @Param("countDelta") int countDelta,
+                   @Param("spentDelta") BigDecimal spentDelta, @Param("orderDate") LocalDateTime orderDate);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_order_summaries", nativeQuery = true)
+    int deleteAllSummaries();
+
+    // Recompute every summary from the orders table; run after deleteAllSummaries in the same transaction
+    @Modifying
+    @Query(value = "INSERT INTO user_order_summaries (user_id, order_count, total_spent, last_order_date) " +
+                   "SELECT user_id, SUM(status <> :excludedStatus), " +
+                   "SUM(CASE WHEN status <> :excludedStatus THEN total_amount ELSE 0 END), MAX(order_date) " +
+                   "FROM orders WHERE user_id IS NOT NULL GROUP BY user_id",
+           nativeQuery = true)
+    int insertAllSummaries(@Param("excludedStatus") String excludedStatus);
+}
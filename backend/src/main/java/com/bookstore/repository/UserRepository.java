@@ -2,10 +2,16 @@ package com.bookstore.repository;
 
 import com.bookstore.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+
+    // One row: [all users, admins]
+    @Query("SELECT COUNT(u), COALESCE(SUM(CASE WHEN u.role = 'admin' THEN 1 ELSE 0 END), 0) FROM User u")
+    List<Object[]> countUsersAndAdmins();
 }
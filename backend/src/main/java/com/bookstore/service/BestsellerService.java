@@ -0,0 +1,419 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.OrderDetailRepository;
+import com.bookstore.util.Constants;
+import com.bookstore.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Units-sold rankings over the last 7 days, the last 30 days and all time, optionally per category.
+ * Counters live in memory: one bucket per day for the longest window plus a running total per window.
+ * They are seeded once at startup and then adjusted after orders placed, cancelled or deleted commit, so
+ * the request path never aggregates order_details.
+ * <p>
+ * Each window also keeps its top {@value #MAX_RANK} books, updated in O(log K) per sold line. Only when a
+ * member of a full top set loses units can an outsider overtake it; the set is then rebuilt by a scan on
+ * a later read, at most once per {@value #RESCAN_MILLIS} ms, outside the monitor that recordOrder takes.
+ * Category rankings are scanned on read and cached for the same interval. Readers therefore never hold
+ * the checkout path for longer than copying a top-K list.
+ */
+@Service
+public class BestsellerService {
+    private static final Logger logger = Logger.getLogger(BestsellerService.class.getName());
+
+    public static final String WINDOW_7D = "7d";
+    public static final String WINDOW_30D = "30d";
+    public static final String WINDOW_ALL = "all";
+    private static final int MAX_WINDOW_DAYS = 30;
+    // Rankings are kept to this depth and sliced per request
+    static final int MAX_RANK = 100;
+    static final long RESCAN_MILLIS = 1000;
+    // Most units first, then the lower book id
+    private static final Comparator<Ranked> RANK_ORDER = Comparator.<Ranked>comparingLong(r -> -r.units)
+            .thenComparingInt(r -> r.bookId);
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    // Guarded by this, like every write to the windows
+    private final Map<LocalDate, Map<Integer, Long>> dailyUnits = new HashMap<>();
+    private final Window last7Days = new Window();
+    private final Window last30Days = new Window();
+    private final Window allTime = new Window();
+    private final Map<Integer, Integer> categoryOf = new ConcurrentHashMap<>();
+    private final Map<String, CategoryRanking> categoryRankings = new ConcurrentHashMap<>();
+    private volatile LocalDate today = LocalDate.now();
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        seed();
+    }
+
+    /**
+     * Rebuild every counter from order_details (non-cancelled orders only).
+     */
+    public synchronized void seed() {
+        long start = System.currentTimeMillis();
+        dailyUnits.clear();
+        last7Days.reset();
+        last30Days.reset();
+        allTime.reset();
+        categoryOf.clear();
+        categoryRankings.clear();
+        today = LocalDate.now();
+
+        for (Object[] row : bookRepository.findAllCategoryIds()) {
+            if (row[1] != null) {
+                categoryOf.put(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            }
+        }
+        for (Object[] row : orderDetailRepository.sumUnitsByBook(Constants.ORDER_STATUS_CANCELLED)) {
+            allTime.add(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+        LocalDate since = today.minusDays(MAX_WINDOW_DAYS - 1);
+        for (Object[] row : orderDetailRepository.sumUnitsByBookAndDay(since.atStartOfDay(), Constants.ORDER_STATUS_CANCELLED)) {
+            int bookId = ((Number) row[0]).intValue();
+            LocalDate day = toLocalDate(row[1]);
+            long units = ((Number) row[2]).longValue();
+            dailyUnits.computeIfAbsent(day, d -> new HashMap<>()).merge(bookId, units, Long::sum);
+            applyToWindows(day, bookId, units);
+        }
+        ready = true;
+        logger.info("Bestseller counters seeded for " + allTime.units.size() + " books in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Count the units of a placed order; call with the same lines and sign -1 to reverse it.
+     * Inside a transaction the counters change only after it commits.
+     */
+    public void recordOrder(Order order, List<OrderDetail> lines, int sign) {
+        if (order == null || lines == null || lines.isEmpty()) {
+            return;
+        }
+        LocalDate day = order.getOrderDate() != null ? order.getOrderDate().toLocalDate() : LocalDate.now();
+        Map<Integer, Long> units = new LinkedHashMap<>();
+        for (OrderDetail line : lines) {
+            if (line.getBookId() != null && line.getQuantity() != null) {
+                units.merge(line.getBookId(), (long) sign * line.getQuantity(), Long::sum);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(day, units);
+                }
+            });
+        } else {
+            apply(day, units);
+        }
+    }
+
+    synchronized void apply(LocalDate day, Map<Integer, Long> units) {
+        rollTo(LocalDate.now());
+        for (Map.Entry<Integer, Long> entry : units.entrySet()) {
+            allTime.add(entry.getKey(), entry.getValue());
+            if (!day.isAfter(today) && day.isAfter(today.minusDays(MAX_WINDOW_DAYS))) {
+                dailyUnits.computeIfAbsent(day, d -> new HashMap<>()).merge(entry.getKey(), entry.getValue(), Long::sum);
+                applyToWindows(day, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public void bookSaved(Book book) {
+        if (book.getCategory() != null && book.getCategory().getCategoryId() != null) {
+            categoryOf.put(book.getBookId(), book.getCategory().getCategoryId());
+        } else {
+            categoryOf.remove(book.getBookId());
+        }
+        categoryRankings.clear();
+    }
+
+    public void bookDeleted(Integer bookId) {
+        categoryOf.remove(bookId);
+        categoryRankings.clear();
+    }
+
+    /**
+     * Best-selling book ids, most units first.
+     * @param window one of 7d, 30d, all
+     * @param categoryId restrict to one category, or null for the whole catalog
+     */
+    public List<Integer> topBookIds(String window, Integer categoryId, int limit) {
+        Window counters = windowFor(window);
+        if (!today.equals(LocalDate.now())) {
+            synchronized (this) {
+                rollTo(LocalDate.now());
+            }
+        }
+        List<Integer> ranking = categoryId == null ? overallRanking(counters) : categoryRanking(window, counters, categoryId);
+        return ranking.subList(0, Math.min(Math.max(limit, 0), ranking.size()));
+    }
+
+    public static boolean isValidWindow(String window) {
+        return WINDOW_7D.equals(window) || WINDOW_30D.equals(window) || WINDOW_ALL.equals(window);
+    }
+
+    private Window windowFor(String window) {
+        switch (window) {
+            case WINDOW_7D: return last7Days;
+            case WINDOW_30D: return last30Days;
+            case WINDOW_ALL: return allTime;
+            default: throw new ValidationException("Unknown bestseller window: " + window);
+        }
+    }
+
+    private List<Integer> overallRanking(Window window) {
+        if (!window.complete && System.currentTimeMillis() - window.rescannedAt >= RESCAN_MILLIS) {
+            rescan(window);
+        }
+        List<Integer> ranking = window.published;
+        if (ranking == null) {
+            synchronized (this) {
+                ranking = window.publish();
+            }
+        }
+        return ranking;
+    }
+
+    /**
+     * Rebuild a window's top set from its counters. The scan runs without this monitor; if sales land while
+     * it runs, the result is still installed but the window stays incomplete so a later read scans again.
+     */
+    private void rescan(Window window) {
+        synchronized (window) {
+            if (window.complete || System.currentTimeMillis() - window.rescannedAt < RESCAN_MILLIS) {
+                return;
+            }
+            long version = window.version;
+            List<Ranked> top = scan(window.units, null);
+            synchronized (this) {
+                window.install(top, window.version == version);
+            }
+        }
+    }
+
+    private List<Integer> categoryRanking(String windowName, Window window, Integer categoryId) {
+        String key = windowName + "|" + categoryId;
+        CategoryRanking cached = categoryRankings.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && (cached.version == window.version || now - cached.computedAt < RESCAN_MILLIS)) {
+            return cached.ids;
+        }
+        long version = window.version;
+        List<Ranked> top = scan(window.units, categoryId);
+        List<Integer> ids = new ArrayList<>(top.size());
+        for (Ranked ranked : top) {
+            ids.add(ranked.bookId);
+        }
+        cached = new CategoryRanking(Collections.unmodifiableList(ids), version, now);
+        categoryRankings.put(key, cached);
+        return cached.ids;
+    }
+
+    /**
+     * The top {@value #MAX_RANK} of the counters, best first. The counters may change while this runs.
+     */
+    private List<Ranked> scan(Map<Integer, Long> counters, Integer categoryId) {
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(RANK_ORDER.reversed());
+        for (Map.Entry<Integer, Long> entry : counters.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            if (categoryId != null && !categoryId.equals(categoryOf.get(entry.getKey()))) {
+                continue;
+            }
+            heap.offer(new Ranked(entry.getKey(), entry.getValue()));
+            if (heap.size() > MAX_RANK) {
+                heap.poll();
+            }
+        }
+        List<Ranked> top = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            top.add(heap.poll());
+        }
+        Collections.reverse(top);
+        return top;
+    }
+
+    private void applyToWindows(LocalDate day, int bookId, long units) {
+        if (day.isAfter(today.minusDays(7))) {
+            last7Days.add(bookId, units);
+        }
+        if (day.isAfter(today.minusDays(MAX_WINDOW_DAYS))) {
+            last30Days.add(bookId, units);
+        }
+    }
+
+    /**
+     * Advance the windows to a new day: subtract the buckets that just fell out of each window.
+     */
+    private void rollTo(LocalDate now) {
+        while (today.isBefore(now)) {
+            today = today.plusDays(1);
+            subtractBucket(last7Days, today.minusDays(7));
+            subtractBucket(last30Days, today.minusDays(MAX_WINDOW_DAYS));
+        }
+        Iterator<LocalDate> days = dailyUnits.keySet().iterator();
+        while (days.hasNext()) {
+            if (!days.next().isAfter(today.minusDays(MAX_WINDOW_DAYS))) {
+                days.remove();
+            }
+        }
+    }
+
+    private void subtractBucket(Window window, LocalDate day) {
+        Map<Integer, Long> bucket = dailyUnits.get(day);
+        if (bucket == null) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> entry : bucket.entrySet()) {
+            window.add(entry.getKey(), -entry.getValue());
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        return ((Date) value).toLocalDate();
+    }
+
+    private static final class Ranked {
+        final int bookId;
+        final long units;
+
+        Ranked(int bookId, long units) {
+            this.bookId = bookId;
+            this.units = units;
+        }
+    }
+
+    private static final class CategoryRanking {
+        final List<Integer> ids;
+        final long version;
+        final long computedAt;
+
+        CategoryRanking(List<Integer> ids, long version, long computedAt) {
+            this.ids = ids;
+            this.version = version;
+            this.computedAt = computedAt;
+        }
+    }
+
+    /**
+     * One window's counters and its bounded top set. Every method except reading {@link #units} and the
+     * volatile fields runs under the enclosing service's monitor.
+     */
+    static final class Window {
+        final Map<Integer, Long> units = new ConcurrentHashMap<>();
+        private final TreeSet<Ranked> top = new TreeSet<>(RANK_ORDER);
+        private final Map<Integer, Ranked> members = new HashMap<>();
+        // False when a book outside the top set may now outrank a member
+        volatile boolean complete = true;
+        volatile long version;
+        volatile long rescannedAt;
+        volatile List<Integer> published;
+
+        void reset() {
+            units.clear();
+            top.clear();
+            members.clear();
+            complete = true;
+            version++;
+            published = null;
+        }
+
+        void add(int bookId, long delta) {
+            Long total = units.merge(bookId, delta, Long::sum);
+            if (total != null && total == 0) {
+                units.remove(bookId);
+            }
+            long count = total == null ? 0 : total;
+            boolean full = top.size() >= MAX_RANK;
+            Ranked old = members.remove(bookId);
+            if (old != null) {
+                top.remove(old);
+                if (delta < 0 && full) {
+                    complete = false;
+                }
+            }
+            if (count > 0) {
+                offer(new Ranked(bookId, count));
+            }
+            version++;
+            published = null;
+        }
+
+        private void offer(Ranked ranked) {
+            if (top.size() >= MAX_RANK) {
+                Ranked last = top.last();
+                if (RANK_ORDER.compare(ranked, last) >= 0) {
+                    return;
+                }
+                top.remove(last);
+                members.remove(last.bookId);
+            }
+            top.add(ranked);
+            members.put(ranked.bookId, ranked);
+        }
+
+        /**
+         * Replace the top set with a scan result, refreshed from the current counters.
+         * @param current whether no sale landed during the scan, so the result is exact
+         */
+        void install(List<Ranked> scanned, boolean current) {
+            top.clear();
+            members.clear();
+            for (Ranked ranked : scanned) {
+                Long units = this.units.get(ranked.bookId);
+                if (units != null && units > 0) {
+                    offer(new Ranked(ranked.bookId, units));
+                }
+            }
+            complete = current;
+            rescannedAt = System.currentTimeMillis();
+            published = null;
+        }
+
+        List<Integer> publish() {
+            List<Integer> ids = new ArrayList<>(top.size());
+            for (Ranked ranked : top) {
+                ids.add(ranked.bookId);
+            }
+            published = Collections.unmodifiableList(ids);
+            return published;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.FacetCountDTO;
+import com.bookstore.model.Book;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet index for the catalog: one bitset of book ids per category, author, publisher,
+ * price bucket and publication decade, updated incrementally by BookService.
+ * Filters are bitset unions (within a facet) and intersections (across facets). Counts for a facet
+ * are taken over the matches of every other facet's filter, so selecting a category still shows
+ * how many books the other categories would give. Each value's book count is kept alongside its
+ * bitset, so browsing without filters needs no bitset work at all.
+ */
+@Component
+public class BookFacetIndex {
+    public static final String CATEGORY = "category";
+    public static final String AUTHOR = "author";
+    public static final String PUBLISHER = "publisher";
+    public static final String PRICE = "price";
+    public static final String DECADE = "decade";
+
+    private static final String[] DIMENSIONS = {CATEGORY, AUTHOR, PUBLISHER, PRICE, DECADE};
+    private static final int PRICE_DIM = 3;
+    private static final int DECADE_DIM = 4;
+    private static final int NONE = -1;
+    private static final int MAX_FACET_VALUES = 20;
+
+    // Upper bounds (VND, exclusive) of the price buckets; the last bucket is open-ended
+    public static final long[] PRICE_BOUNDS = {100_000, 200_000, 500_000};
+
+    private final BitSet all = new BitSet();
+    private final Map<Integer, int[]> docValues = new HashMap<>();
+    private final List<Map<Integer, Posting>> valueBits = new ArrayList<>();
+    private final List<Map<Integer, String>> labels = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    public BookFacetIndex() {
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            valueBits.add(new HashMap<>());
+            labels.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * False until the first full build has finished; BookService answers from the database meanwhile.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        int[] values = {NONE, NONE, NONE, NONE, NONE};
+        if (book.getCategory() != null && book.getCategory().getCategoryId() != null) {
+            values[0] = book.getCategory().getCategoryId();
+        }
+        if (book.getAuthor() != null && book.getAuthor().getAuthorId() != null) {
+            values[1] = book.getAuthor().getAuthorId();
+        }
+        if (book.getPublisher() != null && book.getPublisher().getPublisherId() != null) {
+            values[2] = book.getPublisher().getPublisherId();
+        }
+        if (book.getPrice() != null) {
+            values[PRICE_DIM] = priceBucket(book.getPrice().longValue());
+        }
+        if (book.getPublicationYear() != null) {
+            values[DECADE_DIM] = book.getPublicationYear() / 10 * 10;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(book.getBookId());
+            int bookId = book.getBookId();
+            all.set(bookId);
+            docValues.put(bookId, values);
+            for (int d = 0; d < values.length; d++) {
+                if (values[d] != NONE) {
+                    valueBits.get(d).computeIfAbsent(values[d], v -> new Posting()).add(bookId);
+                }
+            }
+            if (values[0] != NONE) {
+                labels.get(0).put(values[0], book.getCategory().getName());
+            }
+            if (values[1] != NONE) {
+                labels.get(1).put(values[1], book.getAuthor().getName());
+            }
+            if (values[2] != NONE) {
+                labels.get(2).put(values[2], book.getPublisher().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer bookId) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(int bookId) {
+        int[] values = docValues.remove(bookId);
+        if (values == null) {
+            return;
+        }
+        all.clear(bookId);
+        for (int d = 0; d < values.length; d++) {
+            if (values[d] == NONE) {
+                continue;
+            }
+            Posting posting = valueBits.get(d).get(values[d]);
+            if (posting != null) {
+                posting.remove(bookId);
+                if (posting.count == 0) {
+                    valueBits.get(d).remove(values[d]);
+                    labels.get(d).remove(values[d]);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            all.clear();
+            docValues.clear();
+            valueBits.forEach(Map::clear);
+            labels.forEach(Map::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param candidates keyword matches in relevance order, or null to browse the whole catalog newest first
+     * @param filters facet name -> selected values (price buckets by index, decades by first year)
+     */
+    public Result search(List<Integer> candidates, Map<String, Collection<Integer>> filters, int page, int size) {
+        lock.readLock().lock();
+        try {
+            BitSet base = new BitSet();
+            if (candidates == null) {
+                base.or(all);
+            } else {
+                for (Integer id : candidates) {
+                    if (all.get(id)) {
+                        base.set(id);
+                    }
+                }
+            }
+
+            BitSet[] dimensionFilters = new BitSet[DIMENSIONS.length];
+            for (int d = 0; d < DIMENSIONS.length; d++) {
+                Collection<Integer> selected = filters.get(DIMENSIONS[d]);
+                if (selected == null || selected.isEmpty()) {
+                    continue;
+                }
+                BitSet union = new BitSet();
+                for (Integer value : selected) {
+                    Posting posting = valueBits.get(d).get(value);
+                    if (posting != null) {
+                        union.or(posting.bits);
+                    }
+                }
+                dimensionFilters[d] = union;
+            }
+
+            BitSet matched = (BitSet) base.clone();
+            for (BitSet filter : dimensionFilters) {
+                if (filter != null) {
+                    matched.and(filter);
+                }
+            }
+
+            Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+            for (int d = 0; d < DIMENSIONS.length; d++) {
+                if (candidates == null && onlyFilter(dimensionFilters, d)) {
+                    // The scope is the whole catalog: the kept counts are the answer
+                    facets.put(DIMENSIONS[d], countValues(d, null));
+                    continue;
+                }
+                BitSet scope = matched;
+                if (dimensionFilters[d] != null) {
+                    scope = (BitSet) base.clone();
+                    for (int other = 0; other < DIMENSIONS.length; other++) {
+                        if (other != d && dimensionFilters[other] != null) {
+                            scope.and(dimensionFilters[other]);
+                        }
+                    }
+                }
+                facets.put(DIMENSIONS[d], countValues(d, scope));
+            }
+
+            return new Result(pageIds(candidates, matched, page, size), matched.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether no dimension other than d has a filter.
+     */
+    private static boolean onlyFilter(BitSet[] dimensionFilters, int d) {
+        for (int other = 0; other < dimensionFilters.length; other++) {
+            if (other != d && dimensionFilters[other] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Count facet values within the scope (null for the whole catalog) by intersecting it with each
+     * value's bitset. When the scope holds fewer books than the dimension has values (a narrow keyword
+     * search over authors, say), walking the scope's books is cheaper and is done instead.
+     */
+    private List<FacetCountDTO> countValues(int dimension, BitSet scope) {
+        Map<Integer, Posting> postings = valueBits.get(dimension);
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (scope == null) {
+            postings.forEach((value, posting) -> counts.put(value, posting.count));
+        } else if (scope.cardinality() < postings.size()) {
+            for (int id = scope.nextSetBit(0); id >= 0; id = scope.nextSetBit(id + 1)) {
+                int value = docValues.get(id)[dimension];
+                if (value != NONE) {
+                    counts.merge(value, 1, Integer::sum);
+                }
+            }
+        } else {
+            BitSet scratch = new BitSet();
+            for (Map.Entry<Integer, Posting> entry : postings.entrySet()) {
+                scratch.clear();
+                scratch.or(entry.getValue().bits);
+                scratch.and(scope);
+                int count = scratch.cardinality();
+                if (count > 0) {
+                    counts.put(entry.getKey(), count);
+                }
+            }
+        }
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>(counts.entrySet());
+        if (dimension == PRICE_DIM || dimension == DECADE_DIM) {
+            entries.sort(Map.Entry.comparingByKey());
+        } else {
+            entries.sort(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+        }
+        List<FacetCountDTO> result = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : entries) {
+            if (result.size() == MAX_FACET_VALUES) {
+                break;
+            }
+            result.add(new FacetCountDTO(String.valueOf(entry.getKey()), label(dimension, entry.getKey()), entry.getValue()));
+        }
+        return result;
+    }
+
+    private String label(int dimension, int value) {
+        if (dimension == PRICE_DIM) {
+            long from = value == 0 ? 0 : PRICE_BOUNDS[value - 1];
+            return value < PRICE_BOUNDS.length ? from + "-" + PRICE_BOUNDS[value] : from + "+";
+        }
+        if (dimension == DECADE_DIM) {
+            return value + "s";
+        }
+        return labels.get(dimension).get(value);
+    }
+
+    private static List<Integer> pageIds(List<Integer> candidates, BitSet matched, int page, int size) {
+        List<Integer> ids = new ArrayList<>(size);
+        // long so a huge page number skips everything instead of overflowing into a negative offset
+        long skip = (long) page * size;
+        if (candidates != null) {
+            for (Integer id : candidates) {
+                if (!matched.get(id)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else if (ids.size() < size) {
+                    ids.add(id);
+                } else {
+                    break;
+                }
+            }
+            return ids;
+        }
+        for (int id = matched.length() - 1; id >= 0 && ids.size() < size; id = matched.previousSetBit(id - 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static int priceBucket(long price) {
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (price < PRICE_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return PRICE_BOUNDS.length;
+    }
+
+    /**
+     * The books having one facet value, and how many there are.
+     */
+    private static final class Posting {
+        private final BitSet bits = new BitSet();
+        private int count;
+
+        void add(int bookId) {
+            if (!bits.get(bookId)) {
+                bits.set(bookId);
+                count++;
+            }
+        }
+
+        void remove(int bookId) {
+            if (bits.get(bookId)) {
+                bits.clear(bookId);
+                count--;
+            }
+        }
+    }
+
+    public static class Result {
+        private final List<Integer> bookIds;
+        private final int total;
+        private final Map<String, List<FacetCountDTO>> facets;
+
+        public Result(List<Integer> bookIds, int total, Map<String, List<FacetCountDTO>> facets) {
+            this.bookIds = bookIds;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public List<Integer> getBookIds() { return bookIds; }
+        public int getTotal() { return total; }
+        public Map<String, List<FacetCountDTO>> getFacets() { return facets; }
+    }
+}
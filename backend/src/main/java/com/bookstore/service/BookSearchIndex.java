@@ -0,0 +1,329 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Book;
+import com.bookstore.util.InvertedIndex;
+import com.bookstore.util.NGramIndex;
+import com.bookstore.util.TextAnalyzer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Full-text index over the catalog (title, description, author, category, publisher).
+ * Kept in memory for lookups and snapshotted to disk so a restart does not need a full rebuild.
+ * BookService keeps it in sync on every book write. The snapshot also stores a fingerprint of each
+ * book's indexed text, so startup can re-index just the books that changed since it was written.
+ *
+ * Besides the exact terms, every book is also indexed with diacritic-folded terms, and the folded
+ * vocabulary is trigram-indexed, so the fuzzy mode pays nothing for folding at query time and only
+ * compares the query against vocabulary terms that share trigrams with it.
+ */
+@Component
+public class BookSearchIndex {
+    private static final Logger logger = Logger.getLogger(BookSearchIndex.class.getName());
+    private static final int FORMAT_VERSION = 3;
+    private static final String SNAPSHOT_FILE = "books.idx";
+
+    // Field boosts: a match in the title counts more than one in the description
+    private static final int TITLE_BOOST = 3;
+    private static final int AUTHOR_BOOST = 2;
+    private static final int CATEGORY_BOOST = 1;
+    private static final int PUBLISHER_BOOST = 1;
+    private static final int DESCRIPTION_BOOST = 1;
+
+    @Value("${search.index.dir:./data/search-index}")
+    private String indexDir;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final InvertedIndex foldedIndex = new InvertedIndex();
+    private final NGramIndex foldedVocabulary = new NGramIndex();
+    private final Map<Integer, Integer> fingerprints = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        Map<String, Integer> freqs = termFrequencies(book);
+        index.put(book.getBookId(), freqs);
+        foldedIndex.put(book.getBookId(), foldTerms(freqs));
+        fingerprints.put(book.getBookId(), fingerprint(book));
+        dirty.set(true);
+    }
+
+    public void remove(Integer bookId) {
+        if (bookId != null && index.remove(bookId)) {
+            foldedIndex.remove(bookId);
+            fingerprints.remove(bookId);
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Whether the book is indexed with its current title, description and author, category and publisher names.
+     */
+    public boolean isCurrent(Book book) {
+        Integer indexed = fingerprints.get(book.getBookId());
+        return indexed != null && indexed == fingerprint(book);
+    }
+
+    /**
+     * Remove every book not in the given ids, e.g. books deleted while the snapshot was on disk.
+     * @return number of books removed
+     */
+    public int retainOnly(Set<Integer> bookIds) {
+        int removed = 0;
+        for (Integer bookId : new ArrayList<>(fingerprints.keySet())) {
+            if (!bookIds.contains(bookId)) {
+                remove(bookId);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Drop all documents before a rebuild; searches fall back to the database until markReady().
+     */
+    public void clear() {
+        ready = false;
+        index.clear();
+        foldedIndex.clear();
+        foldedVocabulary.clear();
+        fingerprints.clear();
+        dirty.set(true);
+    }
+
+    /**
+     * @return ids of the requested page in relevance order, plus the total number of matches
+     */
+    public Hits search(String keyword, int page, int size) {
+        return page(index.search(exactTerms(keyword), topK(page, size)), page, size);
+    }
+
+    /**
+     * Diacritic-insensitive search that also matches terms within a small edit distance.
+     * Each query term is expanded to similar vocabulary terms, weighted down by their distance.
+     */
+    public Hits fuzzySearch(String keyword, int page, int size) {
+        return page(foldedIndex.search(fuzzyTerms(keyword), topK(page, size)), page, size);
+    }
+
+    /**
+     * Every matching book id, best first; used when results are further filtered before paging.
+     */
+    public List<Integer> rankedIds(String keyword, boolean fuzzy) {
+        InvertedIndex.Result result = fuzzy
+                ? foldedIndex.search(fuzzyTerms(keyword), Integer.MAX_VALUE)
+                : index.search(exactTerms(keyword), Integer.MAX_VALUE);
+        List<Integer> ids = new ArrayList<>(result.getHits().size());
+        for (InvertedIndex.Hit hit : result.getHits()) {
+            ids.add(hit.getDocId());
+        }
+        return ids;
+    }
+
+    private static Map<String, Double> exactTerms(String keyword) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        for (String term : TextAnalyzer.tokenize(keyword)) {
+            terms.put(term, 1.0);
+        }
+        return terms;
+    }
+
+    private Map<String, Double> fuzzyTerms(String keyword) {
+        Map<String, Double> terms = new LinkedHashMap<>();
+        for (String token : TextAnalyzer.tokenize(keyword)) {
+            String folded = TextAnalyzer.fold(token);
+            terms.merge(folded, 1.0, Math::max);
+            int maxEdits = maxEdits(folded);
+            if (maxEdits == 0) {
+                continue;
+            }
+            for (Map.Entry<String, Integer> similar : foldedVocabulary.similarTerms(folded, maxEdits).entrySet()) {
+                if (foldedIndex.docFreq(similar.getKey()) > 0) {
+                    terms.merge(similar.getKey(), 1.0 / (1 + similar.getValue()), Math::max);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 7 ? 1 : 2;
+    }
+
+    // Hits needed to fill the page; long arithmetic so a huge page number cannot overflow into a negative top-K
+    private static int topK(int page, int size) {
+        return (int) Math.min(((long) page + 1) * size, Integer.MAX_VALUE);
+    }
+
+    private static Hits page(InvertedIndex.Result result, int page, int size) {
+        List<InvertedIndex.Hit> hits = result.getHits();
+        int from = (int) Math.min((long) page * size, hits.size());
+        List<Integer> bookIds = new ArrayList<>();
+        for (InvertedIndex.Hit hit : hits.subList(from, hits.size())) {
+            bookIds.add(hit.getDocId());
+        }
+        return new Hits(bookIds, result.getTotalHits());
+    }
+
+    private Map<String, Integer> termFrequencies(Book book) {
+        Map<String, Integer> freqs = new HashMap<>();
+        addField(freqs, book.getTitle(), TITLE_BOOST);
+        addField(freqs, book.getDescription(), DESCRIPTION_BOOST);
+        if (book.getAuthor() != null) {
+            addField(freqs, book.getAuthor().getName(), AUTHOR_BOOST);
+        }
+        if (book.getCategory() != null) {
+            addField(freqs, book.getCategory().getName(), CATEGORY_BOOST);
+        }
+        if (book.getPublisher() != null) {
+            addField(freqs, book.getPublisher().getName(), PUBLISHER_BOOST);
+        }
+        return freqs;
+    }
+
+    private static int fingerprint(Book book) {
+        return Objects.hash(book.getTitle(), book.getDescription(),
+                book.getAuthor() != null ? book.getAuthor().getName() : null,
+                book.getCategory() != null ? book.getCategory().getName() : null,
+                book.getPublisher() != null ? book.getPublisher().getName() : null);
+    }
+
+    private Map<String, Integer> foldTerms(Map<String, Integer> freqs) {
+        Map<String, Integer> folded = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            String term = TextAnalyzer.fold(entry.getKey());
+            folded.merge(term, entry.getValue(), Integer::sum);
+            foldedVocabulary.add(term);
+        }
+        return folded;
+    }
+
+    private static void addField(Map<String, Integer> freqs, String text, int boost) {
+        for (String term : TextAnalyzer.tokenize(text)) {
+            freqs.merge(term, boost, Integer::sum);
+        }
+    }
+
+    /**
+     * Load the last snapshot from disk. The index stays not ready until the caller has checked the
+     * loaded books against the database (see {@link #isCurrent} and {@link #retainOnly}) and calls markReady().
+     * @return false if there is no usable snapshot and the index must be rebuilt from the database
+     */
+    public boolean loadSnapshot() {
+        Path file = Paths.get(indexDir, SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                logger.info("Search index snapshot has an old format, rebuilding");
+                return false;
+            }
+            index.readFrom(in);
+            foldedIndex.readFrom(in);
+            fingerprints.clear();
+            int books = in.readInt();
+            for (int i = 0; i < books; i++) {
+                fingerprints.put(in.readInt(), in.readInt());
+            }
+            foldedVocabulary.clear();
+            for (String term : foldedIndex.terms()) {
+                foldedVocabulary.add(term);
+            }
+            dirty.set(false);
+            logger.info("Loaded search index snapshot with " + index.size() + " books");
+            return true;
+        } catch (IOException e) {
+            logger.warning("Could not load search index snapshot: " + e.getMessage());
+            index.clear();
+            foldedIndex.clear();
+            fingerprints.clear();
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.flush-interval-ms:30000}")
+    public void flushSnapshot() {
+        if (!ready || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(indexDir);
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            // Copied first: a book re-indexed during the write then shows up as changed at the next startup
+            Map<Integer, Integer> books = new HashMap<>(fingerprints);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FORMAT_VERSION);
+                index.writeTo(out);
+                foldedIndex.writeTo(out);
+                out.writeInt(books.size());
+                for (Map.Entry<Integer, Integer> book : books.entrySet()) {
+                    out.writeInt(book.getKey());
+                    out.writeInt(book.getValue());
+                }
+            }
+            Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warning("Could not write search index snapshot: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flushSnapshot();
+    }
+
+    public static class Hits {
+        private final List<Integer> bookIds;
+        private final int total;
+
+        public Hits(List<Integer> bookIds, int total) {
+            this.bookIds = bookIds;
+            this.total = total;
+        }
+
+        public List<Integer> getBookIds() { return bookIds; }
+        public int getTotal() { return total; }
+    }
+}
@@ -1,6 +1,9 @@
 package com.bookstore.service;
 
 import com.bookstore.dto.BookDTO;
+import com.bookstore.dto.CursorPage;
+import com.bookstore.dto.FacetSearchResultDTO;
+import com.bookstore.dto.SuggestionDTO;
 import com.bookstore.model.Book;
 import com.bookstore.model.Category;
 import com.bookstore.model.Author;
@@ -9,16 +12,37 @@ import com.bookstore.repository.BookRepository;
 import com.bookstore.repository.CategoryRepository;
 import com.bookstore.repository.AuthorRepository;
 import com.bookstore.repository.PublisherRepository;
+import com.bookstore.exception.ConflictException;
+import com.bookstore.exception.ValidationException;
+import com.bookstore.util.Constants;
+import com.bookstore.util.CursorUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 
 @Service
 public class BookService {
+    private static final Logger logger = Logger.getLogger(BookService.class.getName());
+    private static final int INDEX_BATCH_SIZE = 500;
+
     @Autowired
     private BookRepository bookRepository;
 
@@ -31,16 +55,65 @@ public class BookService {
     @Autowired
     private PublisherRepository publisherRepository;
 
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BestsellerService bestsellerService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Keyset-paginated catalog listing ordered by bookId.
+     * Fetches one extra row to know whether another page exists.
+     */
+    public CursorPage<Book> getBooksPage(String cursor, Integer size) {
+        int pageSize = CursorUtil.pageSize(size);
+        List<Book> rows = bookRepository.findPageAfter(CursorUtil.decodeId(cursor), PageRequest.of(0, pageSize + 1));
+        return toCursorPage(rows, pageSize);
+    }
+
+    public CursorPage<Book> getBooksByCategoryPage(Integer categoryId, String cursor, Integer size) {
+        int pageSize = CursorUtil.pageSize(size);
+        List<Book> rows = bookRepository.findPageByCategoryAfter(categoryId, CursorUtil.decodeId(cursor), PageRequest.of(0, pageSize + 1));
+        return toCursorPage(rows, pageSize);
+    }
+
+    public CursorPage<Book> getBooksByAuthorPage(Integer authorId, String cursor, Integer size) {
+        int pageSize = CursorUtil.pageSize(size);
+        List<Book> rows = bookRepository.findPageByAuthorAfter(authorId, CursorUtil.decodeId(cursor), PageRequest.of(0, pageSize + 1));
+        return toCursorPage(rows, pageSize);
+    }
+
+    private CursorPage<Book> toCursorPage(List<Book> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<Book> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? CursorUtil.encode(items.get(items.size() - 1).getBookId()) : null;
+        return new CursorPage<>(items, nextCursor, hasMore, items.size());
     }
 
     public Optional<Book> getBookById(Integer id) {
-        return bookRepository.findById(id);
+        return catalogCache.getBook(id);
     }
 
     public Book createBook(Book book) {
-        return bookRepository.save(book);
+        return afterBookSaved(bookRepository.save(book));
     }
 
     public Book createBookFromDTO(BookDTO bookDTO) {
@@ -68,15 +141,14 @@ public class BookService {
             publisher.ifPresent(book::setPublisher);
         }
         
-        return bookRepository.save(book);
+        return afterBookSaved(bookRepository.save(book));
     }
 
     public Book updateBook(Integer id, Book bookDetails) {
-        return bookRepository.findById(id).map(book -> {
+        return afterBookSaved(saveEdit(id, bookDetails.getStockQuantity(), book -> {
             book.setTitle(bookDetails.getTitle());
             book.setDescription(bookDetails.getDescription());
             book.setPrice(bookDetails.getPrice());
-            book.setStockQuantity(bookDetails.getStockQuantity());
             book.setIsbn(bookDetails.getIsbn());
             book.setPublicationYear(bookDetails.getPublicationYear());
             book.setCoverImageUrl(bookDetails.getCoverImageUrl());
@@ -104,17 +176,14 @@ public class BookService {
             } else {
                 book.setPublisher(null);
             }
-            
-            return bookRepository.save(book);
-        }).orElseThrow(() -> new RuntimeException("Book not found"));
+        }));
     }
 
     public Book updateBookFromDTO(Integer id, BookDTO bookDTO) {
-        return bookRepository.findById(id).map(book -> {
+        return afterBookSaved(saveEdit(id, bookDTO.getStockQuantity(), book -> {
             book.setTitle(bookDTO.getTitle());
             book.setDescription(bookDTO.getDescription());
             book.setPrice(bookDTO.getPrice());
-            book.setStockQuantity(bookDTO.getStockQuantity());
             book.setIsbn(bookDTO.getIsbn());
             book.setPublicationYear(bookDTO.getPublicationYear());
             book.setCoverImageUrl(bookDTO.getCoverImageUrl());
@@ -139,22 +208,251 @@ public class BookService {
             } else {
                 book.setPublisher(null);
             }
-            
+        }));
+    }
+
+    /**
+     * Load, edit and save one book. While the book is on flash sale its stock belongs to the sale's counter,
+     * which flushes the units sold to the row: the row is read under its lock so the save cannot write back
+     * a stock value from before the latest flush, and a request to change the stock is rejected.
+     */
+    private Book saveEdit(Integer id, Integer stockQuantity, Consumer<Book> edit) {
+        return transactionTemplate.execute(status -> {
+            boolean onSale = flashSaleService.isActive(id);
+            Book book = (onSale ? bookRepository.findByIdForUpdate(id) : bookRepository.findById(id))
+                    .orElseThrow(() -> new RuntimeException("Book not found"));
+            if (!onSale) {
+                book.setStockQuantity(stockQuantity);
+            } else if (stockQuantity != null && !stockQuantity.equals(book.getStockQuantity())) {
+                throw new ConflictException("Book " + id + " is on flash sale; end the sale before changing its stock");
+            }
+            edit.accept(book);
             return bookRepository.save(book);
-        }).orElseThrow(() -> new RuntimeException("Book not found"));
+        });
     }
 
     public void deleteBook(Integer id) {
         bookRepository.deleteById(id);
+        afterBookDeleted(id);
+    }
+
+    /**
+     * Keep the cache and the derived catalog indexes in sync with a saved book.
+     */
+    private Book afterBookSaved(Book book) {
+        catalogCache.evictBook(book.getBookId());
+        bookSearchIndex.index(book);
+        bookSuggestIndex.index(book);
+        bookFacetIndex.index(book);
+        bestsellerService.bookSaved(book);
+        return book;
+    }
+
+    private void afterBookDeleted(Integer id) {
+        catalogCache.evictBook(id);
+        bookSearchIndex.remove(id);
+        bookSuggestIndex.remove(id);
+        bookFacetIndex.remove(id);
+        bestsellerService.bookDeleted(id);
+    }
+
+    /**
+     * Refresh the cache and indexes for books written outside JPA, e.g. by the bulk import.
+     */
+    public void reindexBooks(Collection<Integer> bookIds) {
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            afterBookSaved(book);
+        }
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return bookSuggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Relevance-ranked, paged full-text search.
+     * Falls back to the LIKE query while the index is being built.
+     * @param fuzzy ignore diacritics and tolerate small typos ("sach tieng viet" finds "Sách tiếng Việt")
+     */
+    public Page<Book> searchBooks(String keyword, int page, Integer size, boolean fuzzy) {
+        int pageSize = CursorUtil.pageSize(size);
+        int pageNumber = Math.max(page, 0);
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+        if (keyword == null || keyword.isBlank()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        if (!bookSearchIndex.isReady()) {
+            List<Book> matches = bookRepository.searchBooks(keyword);
+            int from = (int) Math.min((long) pageNumber * pageSize, matches.size());
+            int to = Math.min(from + pageSize, matches.size());
+            return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+        }
+        BookSearchIndex.Hits hits = fuzzy
+                ? bookSearchIndex.fuzzySearch(keyword, pageNumber, pageSize)
+                : bookSearchIndex.search(keyword, pageNumber, pageSize);
+        return new PageImpl<>(loadInOrder(hits.getBookIds()), pageable, hits.getTotal());
+    }
+
+    /**
+     * One page of books matching an optional keyword and any combination of facet filters,
+     * with per-facet counts. Without a keyword the catalog is browsed newest first.
+     */
+    public FacetSearchResultDTO facetedSearch(String keyword, boolean fuzzy, Map<String, Collection<Integer>> filters,
+                                              int page, Integer size) {
+        int pageSize = CursorUtil.pageSize(size);
+        int pageNumber = Math.max(page, 0);
+        if (!bookFacetIndex.isReady() || (keyword != null && !keyword.isBlank() && !bookSearchIndex.isReady())) {
+            return facetedSearchFromDatabase(keyword, filters, pageNumber, pageSize);
+        }
+        List<Integer> candidates = null;
+        if (keyword != null && !keyword.isBlank()) {
+            candidates = bookSearchIndex.rankedIds(keyword, fuzzy);
+        }
+        BookFacetIndex.Result result = bookFacetIndex.search(candidates, filters, pageNumber, pageSize);
+        return new FacetSearchResultDTO(loadInOrder(result.getBookIds()), result.getTotal(), pageNumber, pageSize, result.getFacets());
+    }
+
+    /**
+     * Faceted search while the in-memory indexes are being built: keyword LIKE match plus the filters,
+     * newest first, without facet counts.
+     */
+    private FacetSearchResultDTO facetedSearchFromDatabase(String keyword, Map<String, Collection<Integer>> filters,
+                                                           int page, int size) {
+        Collection<Integer> categories = filters.get(BookFacetIndex.CATEGORY);
+        Collection<Integer> authors = filters.get(BookFacetIndex.AUTHOR);
+        Collection<Integer> publishers = filters.get(BookFacetIndex.PUBLISHER);
+        Collection<Integer> prices = filters.get(BookFacetIndex.PRICE);
+        Collection<Integer> decades = filters.get(BookFacetIndex.DECADE);
+        long[] bounds = BookFacetIndex.PRICE_BOUNDS;
+        Page<Book> books = bookRepository.findByFacetFilters(keyword == null ? "" : keyword.trim(),
+                isSelected(categories), orNone(categories), isSelected(authors), orNone(authors),
+                isSelected(publishers), orNone(publishers), isSelected(prices), orNone(prices),
+                BigDecimal.valueOf(bounds[0]), BigDecimal.valueOf(bounds[1]), BigDecimal.valueOf(bounds[2]),
+                isSelected(decades), orNone(decades),
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "bookId")));
+        return new FacetSearchResultDTO(books.getContent(), (int) books.getTotalElements(), page, size, Map.of());
+    }
+
+    private static boolean isSelected(Collection<Integer> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    // An IN list must not be empty even when its filter is switched off
+    private static Collection<Integer> orNone(Collection<Integer> values) {
+        return isSelected(values) ? values : List.of(-1);
+    }
+
+    /**
+     * Load books by id with one query, preserving the order of the ids.
+     */
+    private List<Book> loadInOrder(List<Integer> ids) {
+        Map<Integer, Book> byId = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            byId.put(book.getBookId(), book);
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Book book = byId.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Walk the whole catalog in keyset order, one batch at a time, without loading it all at once.
+     */
+    public void forEachBookBatch(Consumer<List<Book>> consumer) {
+        int lastId = 0;
+        List<Book> batch;
+        do {
+            batch = bookRepository.findPageAfter(lastId, PageRequest.of(0, INDEX_BATCH_SIZE));
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+                lastId = batch.get(batch.size() - 1).getBookId();
+            }
+        } while (batch.size() == INDEX_BATCH_SIZE);
     }
 
-    public List<Book> searchBooks(String keyword) {
-        return bookRepository.searchBooks(keyword);
+    /**
+     * Rebuild the full-text and autocomplete indexes from the database.
+     * @return number of books indexed
+     */
+    public int rebuildSearchIndex() {
+        return rebuildIndexes(false);
     }
 
-    public List<Book> getBooksByCategory(Integer categoryId) {
-        Optional<Category> category = categoryRepository.findById(categoryId);
-        return category.map(bookRepository::findByCategory).orElse(List.of());
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIndexes() {
+        reviewService.initRatingSummaries();
+        rebuildIndexes(bookSearchIndex.loadSnapshot());
+    }
+
+    /**
+     * One keyset scan of the catalog feeding every in-memory index.
+     * @param searchIndexLoaded the full-text index was restored from its snapshot; only books that changed
+     *                          or disappeared since the snapshot was written are re-indexed
+     */
+    private int rebuildIndexes(boolean searchIndexLoaded) {
+        long start = System.currentTimeMillis();
+        if (!searchIndexLoaded) {
+            bookSearchIndex.clear();
+        }
+        bookSuggestIndex.beginRebuild();
+        bookFacetIndex.clear();
+        int[] count = {0, 0};
+        Set<Integer> seen = new HashSet<>();
+        try {
+            forEachBookBatch(batch -> {
+                for (Book book : batch) {
+                    if (!searchIndexLoaded) {
+                        bookSearchIndex.index(book);
+                    } else {
+                        seen.add(book.getBookId());
+                        if (!bookSearchIndex.isCurrent(book)) {
+                            bookSearchIndex.index(book);
+                            count[1]++;
+                        }
+                    }
+                    bookSuggestIndex.index(book);
+                    bookFacetIndex.index(book);
+                }
+                count[0] += batch.size();
+            });
+        } finally {
+            bookSuggestIndex.endRebuild();
+        }
+        if (searchIndexLoaded) {
+            int removed = bookSearchIndex.retainOnly(seen);
+            logger.info("Search index snapshot reconciled: " + count[1] + " books re-indexed, " + removed + " removed");
+        }
+        bookSearchIndex.markReady();
+        bookFacetIndex.markReady();
+        logger.info("Catalog indexes rebuilt with " + count[0] + " books in " + (System.currentTimeMillis() - start) + " ms");
+        return count[0];
+    }
+
+    /**
+     * Re-index the books of a category, author or publisher after it was renamed, so search, suggestions
+     * and facet labels show the new name.
+     */
+    public void reindexBooksOfCategory(Integer categoryId) {
+        reindexInBatches(bookRepository.findIdsByCategoryId(categoryId));
+    }
+
+    public void reindexBooksOfAuthor(Integer authorId) {
+        reindexInBatches(bookRepository.findIdsByAuthorId(authorId));
+    }
+
+    public void reindexBooksOfPublisher(Integer publisherId) {
+        reindexInBatches(bookRepository.findIdsByPublisherId(publisherId));
+    }
+
+    private void reindexInBatches(List<Integer> bookIds) {
+        for (int from = 0; from < bookIds.size(); from += INDEX_BATCH_SIZE) {
+            reindexBooks(bookIds.subList(from, Math.min(from + INDEX_BATCH_SIZE, bookIds.size())));
+        }
     }
 
     public List<Book> getNewBooks(int limit) {
@@ -163,14 +461,38 @@ public class BookService {
     }
 
     public List<Book> getBestsellers(int limit) {
-        // For now, return the most recently added books as bestsellers
-        // In a real application, this would be based on sales data
-        Pageable pageable = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "bookId"));
-        return bookRepository.findAll(pageable).getContent();
+        return getBestsellers(BestsellerService.WINDOW_30D, null, limit);
     }
 
-    public List<Book> getBooksByAuthor(Integer authorId) {
-        Optional<Author> author = authorRepository.findById(authorId);
-        return author.map(bookRepository::findByAuthor).orElse(List.of());
+    /**
+     * Books ranked by units sold in the window, read from the in-memory sales counters.
+     * While there are fewer sellers than requested, the list is topped up with the newest books.
+     */
+    public List<Book> getBestsellers(String window, Integer categoryId, int limit) {
+        if (!BestsellerService.isValidWindow(window)) {
+            throw new ValidationException("window must be one of 7d, 30d, all");
+        }
+        int size = Math.min(Math.max(limit, 1), Constants.MAX_PAGE_SIZE);
+        List<Book> books = new ArrayList<>();
+        if (bestsellerService.isReady()) {
+            books.addAll(loadInOrder(bestsellerService.topBookIds(window, categoryId, size)));
+        }
+        if (books.size() < size) {
+            Set<Integer> seen = new HashSet<>();
+            books.forEach(book -> seen.add(book.getBookId()));
+            Pageable newest = PageRequest.of(0, size + books.size(), Sort.by(Sort.Direction.DESC, "bookId"));
+            List<Book> candidates = categoryId == null
+                    ? bookRepository.findAll(newest).getContent()
+                    : bookRepository.findByCategoryCategoryId(categoryId, newest);
+            for (Book book : candidates) {
+                if (books.size() == size) {
+                    break;
+                }
+                if (seen.add(book.getBookId())) {
+                    books.add(book);
+                }
+            }
+        }
+        return books;
     }
 }
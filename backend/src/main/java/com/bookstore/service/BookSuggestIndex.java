@@ -0,0 +1,215 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.model.Book;
+import com.bookstore.util.PrefixTrie;
+import com.bookstore.util.TextAnalyzer;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory prefix index behind /api/books/suggest.
+ * Completes book titles, author names and category names, ranked by popularity:
+ * a book's weight is its review count, an author's or category's weight is its number of books.
+ * Keys are diacritic-folded, and every word of a name is a key, so "potter" completes "Harry Potter".
+ */
+@Component
+public class BookSuggestIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_WORD_KEYS = 6;
+
+    private static final String BOOK = "book";
+    private static final String AUTHOR = "author";
+    private static final String CATEGORY = "category";
+
+    private final PrefixTrie trie = new PrefixTrie(MAX_SUGGESTIONS);
+    // bookId -> {authorId, categoryId} as last indexed, so counts can be adjusted on update/delete
+    private final Map<Integer, int[]> bookRefs = new HashMap<>();
+    private final Named authors = new Named(AUTHOR);
+    private final Named categories = new Named(CATEGORY);
+    // While rebuilding, author and category entries are only written once, by endRebuild()
+    private boolean rebuilding;
+
+    public synchronized void index(Book book) {
+        if (book == null || book.getBookId() == null) {
+            return;
+        }
+        releaseRefs(book.getBookId());
+        if (book.getTitle() != null) {
+            trie.put(new PrefixTrie.Entry(entryId(BOOK, book.getBookId()), book.getTitle(), popularity(book)), keys(book.getTitle()));
+        }
+        int authorId = 0;
+        if (book.getAuthor() != null && book.getAuthor().getAuthorId() != null && book.getAuthor().getName() != null) {
+            authorId = book.getAuthor().getAuthorId();
+            authors.add(authorId, book.getAuthor().getName());
+        }
+        int categoryId = 0;
+        if (book.getCategory() != null && book.getCategory().getCategoryId() != null && book.getCategory().getName() != null) {
+            categoryId = book.getCategory().getCategoryId();
+            categories.add(categoryId, book.getCategory().getName());
+        }
+        bookRefs.put(book.getBookId(), new int[]{authorId, categoryId});
+        flushNamed();
+    }
+
+    public synchronized void remove(Integer bookId) {
+        if (bookId == null) {
+            return;
+        }
+        trie.remove(entryId(BOOK, bookId));
+        releaseRefs(bookId);
+        flushNamed();
+    }
+
+    /**
+     * Follow a change in a book's review count; called once the review write has committed.
+     */
+    public synchronized void adjustPopularity(Integer bookId, int delta) {
+        if (bookId == null || delta == 0) {
+            return;
+        }
+        String id = entryId(BOOK, bookId);
+        PrefixTrie.Entry existing = trie.get(id);
+        if (existing != null) {
+            trie.reweight(id, Math.max(0, existing.getWeight() + delta));
+        }
+    }
+
+    public synchronized void clear() {
+        trie.clear();
+        bookRefs.clear();
+        authors.clear();
+        categories.clear();
+    }
+
+    /**
+     * Start a full rebuild: the index is cleared, and author and category entries are held back until
+     * endRebuild() so each is written once rather than once per book.
+     */
+    public synchronized void beginRebuild() {
+        clear();
+        rebuilding = true;
+    }
+
+    public synchronized void endRebuild() {
+        rebuilding = false;
+        flushNamed();
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = String.join(" ", foldedTokens(prefix));
+        List<SuggestionDTO> suggestions = new ArrayList<>();
+        if (key.isEmpty()) {
+            return suggestions;
+        }
+        for (PrefixTrie.Entry entry : trie.complete(key, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)))) {
+            String[] idParts = entry.getId().split(":", 2);
+            suggestions.add(new SuggestionDTO(idParts[0], Integer.valueOf(idParts[1]), entry.getText()));
+        }
+        return suggestions;
+    }
+
+    private void releaseRefs(Integer bookId) {
+        int[] refs = bookRefs.remove(bookId);
+        if (refs == null) {
+            return;
+        }
+        authors.release(refs[0]);
+        categories.release(refs[1]);
+    }
+
+    private void flushNamed() {
+        if (!rebuilding) {
+            authors.flush();
+            categories.flush();
+        }
+    }
+
+    private static long popularity(Book book) {
+        return book.getRatingCount() == null ? 0 : book.getRatingCount();
+    }
+
+    private static String entryId(String type, int id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * The whole folded name plus the suffix starting at each of its first few words.
+     */
+    private static List<String> keys(String text) {
+        List<String> tokens = foldedTokens(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(tokens.size(), MAX_WORD_KEYS); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+
+    private static List<String> foldedTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TextAnalyzer.tokenize(text)) {
+            tokens.add(TextAnalyzer.fold(token));
+        }
+        return tokens;
+    }
+
+    /**
+     * Authors or categories with their book counts. Changes are collected and written to the trie by flush():
+     * a new or renamed entry is put under its keys, a count change only reweights it.
+     */
+    private final class Named {
+        private final String type;
+        private final Map<Integer, Integer> bookCounts = new HashMap<>();
+        private final Map<Integer, String> names = new HashMap<>();
+        private final Set<Integer> dirty = new HashSet<>();
+
+        Named(String type) {
+            this.type = type;
+        }
+
+        void add(int refId, String name) {
+            bookCounts.merge(refId, 1, Integer::sum);
+            names.put(refId, name);
+            dirty.add(refId);
+        }
+
+        void release(int refId) {
+            if (refId != 0 && bookCounts.computeIfPresent(refId, (id, count) -> count > 1 ? count - 1 : null) == null) {
+                names.remove(refId);
+            }
+            if (refId != 0) {
+                dirty.add(refId);
+            }
+        }
+
+        void flush() {
+            for (Integer refId : dirty) {
+                String id = entryId(type, refId);
+                Integer count = bookCounts.get(refId);
+                if (count == null) {
+                    trie.remove(id);
+                    continue;
+                }
+                String name = names.get(refId);
+                PrefixTrie.Entry existing = trie.get(id);
+                if (existing == null || !existing.getText().equals(name)) {
+                    trie.put(new PrefixTrie.Entry(id, name, count), keys(name));
+                } else {
+                    trie.reweight(id, count);
+                }
+            }
+            dirty.clear();
+        }
+
+        void clear() {
+            bookCounts.clear();
+            names.clear();
+            dirty.clear();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Author;
+import com.bookstore.model.Book;
+import com.bookstore.model.Category;
+import com.bookstore.model.Publisher;
+import com.bookstore.repository.AuthorRepository;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CategoryRepository;
+import com.bookstore.repository.PublisherRepository;
+import com.bookstore.util.BoundedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Read-through cache for the catalog's most-read, least-written data: single books and the
+ * category, author and publisher lookups.
+ * Every write path calls the matching evict method, and a change to a category, author or
+ * publisher also evicts the cached books that embed it.
+ */
+@Component
+public class CatalogCache {
+    private static final String ALL = "all";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Value("${cache.catalog.max-books:10000}")
+    private int maxBooks;
+
+    @Value("${cache.catalog.max-lookups:1000}")
+    private int maxLookups;
+
+    @Value("${cache.catalog.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private BoundedCache<Integer, Book> books;
+    private BoundedCache<Integer, Category> categories;
+    private BoundedCache<Integer, Author> authors;
+    private BoundedCache<Integer, Publisher> publishers;
+    private BoundedCache<String, List<Category>> categoryLists;
+    private BoundedCache<String, List<Author>> authorLists;
+    private BoundedCache<String, List<Publisher>> publisherLists;
+
+    @PostConstruct
+    public void init() {
+        long ttlMillis = ttlSeconds * 1000;
+        books = new BoundedCache<>("books", maxBooks, ttlMillis);
+        categories = new BoundedCache<>("categories", maxLookups, ttlMillis);
+        authors = new BoundedCache<>("authors", maxLookups, ttlMillis);
+        publishers = new BoundedCache<>("publishers", maxLookups, ttlMillis);
+        categoryLists = new BoundedCache<>("categoryLists", 1, ttlMillis);
+        authorLists = new BoundedCache<>("authorLists", 1, ttlMillis);
+        publisherLists = new BoundedCache<>("publisherLists", 1, ttlMillis);
+    }
+
+    public Optional<Book> getBook(Integer id) {
+        return Optional.ofNullable(books.getOrLoad(id, key -> bookRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<Category> getCategory(Integer id) {
+        return Optional.ofNullable(categories.getOrLoad(id, key -> categoryRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<Author> getAuthor(Integer id) {
+        return Optional.ofNullable(authors.getOrLoad(id, key -> authorRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<Publisher> getPublisher(Integer id) {
+        return Optional.ofNullable(publishers.getOrLoad(id, key -> publisherRepository.findById(key).orElse(null)));
+    }
+
+    public List<Category> getAllCategories() {
+        return categoryLists.getOrLoad(ALL, key -> List.copyOf(categoryRepository.findAll()));
+    }
+
+    public List<Author> getAllAuthors() {
+        return authorLists.getOrLoad(ALL, key -> List.copyOf(authorRepository.findAll()));
+    }
+
+    public List<Publisher> getAllPublishers() {
+        return publisherLists.getOrLoad(ALL, key -> List.copyOf(publisherRepository.findAll()));
+    }
+
+    public void evictBook(Integer bookId) {
+        books.invalidate(bookId);
+    }
+
+    /**
+     * Evict once the current transaction commits. Evicting earlier lets a concurrent reader load the
+     * not-yet-committed row's old values and cache them until the TTL runs out.
+     */
+    public void evictBookAfterCommit(Integer bookId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    books.invalidate(bookId);
+                }
+            });
+        } else {
+            books.invalidate(bookId);
+        }
+    }
+
+    public void evictCategory(Integer categoryId) {
+        categories.invalidate(categoryId);
+        categoryLists.clear();
+        books.invalidateIf(book -> book.getCategory() != null
+                && Objects.equals(book.getCategory().getCategoryId(), categoryId));
+    }
+
+    public void evictAuthor(Integer authorId) {
+        authors.invalidate(authorId);
+        authorLists.clear();
+        books.invalidateIf(book -> book.getAuthor() != null
+                && Objects.equals(book.getAuthor().getAuthorId(), authorId));
+    }
+
+    public void evictPublisher(Integer publisherId) {
+        publishers.invalidate(publisherId);
+        publisherLists.clear();
+        books.invalidateIf(book -> book.getPublisher() != null
+                && Objects.equals(book.getPublisher().getPublisherId(), publisherId));
+    }
+
+    /**
+     * Drop the cached category, author and publisher lists, e.g. after a bulk import created new entries.
+     */
+    public void evictLookupLists() {
+        categoryLists.clear();
+        authorLists.clear();
+        publisherLists.clear();
+    }
+
+    public void clear() {
+        for (BoundedCache<?, ?> cache : allCaches()) {
+            cache.clear();
+        }
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (BoundedCache<?, ?> cache : allCaches()) {
+            stats.add(cache.stats());
+        }
+        return stats;
+    }
+
+    private List<BoundedCache<?, ?>> allCaches() {
+        return List.of(books, categories, authors, publishers, categoryLists, authorLists, publisherLists);
+    }
+}
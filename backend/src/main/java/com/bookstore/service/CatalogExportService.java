@@ -0,0 +1,143 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ValidationException;
+import com.bookstore.util.CsvUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Streams the catalog as NDJSON or CSV straight from a MySQL streaming result set, one row at a time,
+ * so memory use does not grow with the catalog. Column names match the bulk import format, so an
+ * export can be fed back into /api/admin/catalog/import.
+ */
+@Service
+public class CatalogExportService {
+    private static final Logger logger = Logger.getLogger(CatalogExportService.class.getName());
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String[] COLUMNS = {
+        "book_id", "isbn", "title", "description", "price", "stock_quantity", "publication_year",
+        "cover_image_url", "category", "author", "publisher", "rating_count", "average_rating", "updated_at"
+    };
+
+    private static final String EXPORT_SQL =
+            "SELECT b.book_id, b.isbn, b.title, b.description, b.price, b.stock_quantity, b.publication_year, " +
+            "b.cover_image_url, c.name AS category, a.name AS author, p.name AS publisher, " +
+            "b.rating_count, b.rating_total, COALESCE(b.updated_at, b.created_at) AS updated_at " +
+            "FROM books b " +
+            "LEFT JOIN categories c ON c.category_id = b.category_id " +
+            "LEFT JOIN authors a ON a.author_id = b.author_id " +
+            "LEFT JOIN publishers p ON p.publisher_id = b.publisher_id ";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public static boolean isValidFormat(String format) {
+        return FORMAT_CSV.equals(format) || FORMAT_NDJSON.equals(format);
+    }
+
+    /**
+     * Write every book (or every book changed since updatedSince) to the stream. Edits, imports, stock and
+     * rating changes all bump updated_at; renaming a category, author or publisher does not, and deleted
+     * books are never listed, so a consumer needs a periodic full export to pick those up.
+     * @return number of rows written
+     */
+    public long export(OutputStream output, String format, LocalDateTime updatedSince) throws IOException {
+        if (!isValidFormat(format)) {
+            throw new ValidationException("format must be csv or ndjson");
+        }
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        boolean csv = FORMAT_CSV.equals(format);
+        if (csv) {
+            CsvUtil.writeRecord(writer, (Object[]) COLUMNS);
+        }
+        long[] rows = {0};
+        try {
+            String sql = EXPORT_SQL + (updatedSince != null ? "WHERE COALESCE(b.updated_at, b.created_at) >= ? " : "") + "ORDER BY b.book_id";
+            Object[] args = updatedSince != null ? new Object[] {Timestamp.valueOf(updatedSince)} : new Object[0];
+            streamingJdbcTemplate.query(sql, rs -> {
+                try {
+                    if (csv) {
+                        CsvUtil.writeRecord(writer, values(rs));
+                    } else {
+                        writeJson(writer, rs);
+                    }
+                } catch (IOException e) {
+                    // The client went away; abort the query instead of streaming into nowhere
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }, args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        logger.info("Catalog export: " + rows[0] + " rows as " + format + " in " + (System.currentTimeMillis() - start) + " ms");
+        return rows[0];
+    }
+
+    private void writeJson(Writer writer, ResultSet rs) throws SQLException, IOException {
+        Object[] values = values(rs);
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            row.put(COLUMNS[i], values[i]);
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private static Object[] values(ResultSet rs) throws SQLException {
+        int ratingCount = rs.getInt("rating_count");
+        long ratingTotal = rs.getLong("rating_total");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new Object[] {
+            rs.getInt("book_id"),
+            rs.getString("isbn"),
+            rs.getString("title"),
+            rs.getString("description"),
+            rs.getBigDecimal("price"),
+            rs.getObject("stock_quantity"),
+            rs.getObject("publication_year"),
+            rs.getString("cover_image_url"),
+            rs.getString("category"),
+            rs.getString("author"),
+            rs.getString("publisher"),
+            ratingCount,
+            ratingCount == 0 ? 0.0 : Math.round(ratingTotal * 100.0 / ratingCount) / 100.0,
+            updatedAt == null ? null : updatedAt.toLocalDateTime().toString()
+        };
+    }
+}
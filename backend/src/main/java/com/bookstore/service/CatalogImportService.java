@@ -0,0 +1,464 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.ImportReportDTO;
+import com.bookstore.exception.ValidationException;
+import com.bookstore.util.Constants;
+import com.bookstore.util.CsvUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Bulk catalog import from a streamed CSV or NDJSON upload.
+ * Rows are parsed one at a time and written in JDBC batches that upsert by ISBN. Category, author
+ * and publisher names are resolved through a lookup map that lives for the whole import, so each
+ * distinct name costs at most one query and one insert. Rows that fail are reported, not fatal.
+ */
+@Service
+public class CatalogImportService {
+    private static final Logger logger = Logger.getLogger(CatalogImportService.class.getName());
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_ISBN_LENGTH = 255;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    // Required fields are always overwritten; optional ones keep the stored value when the row leaves them out
+    private static final String UPSERT_SQL =
+            "INSERT INTO books (title, isbn, description, price, stock_quantity, publication_year, cover_image_url, " +
+            "category_id, author_id, publisher_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, COALESCE(?, 0), ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE title = VALUES(title), price = VALUES(price), updated_at = VALUES(updated_at), " +
+            "description = COALESCE(?, description), stock_quantity = COALESCE(?, stock_quantity), " +
+            "publication_year = COALESCE(?, publication_year), cover_image_url = COALESCE(?, cover_image_url), " +
+            "category_id = COALESCE(?, category_id), author_id = COALESCE(?, author_id), publisher_id = COALESCE(?, publisher_id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    public ImportReportDTO importCatalog(InputStream input, String format) throws IOException {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new ValidationException("format must be csv or ndjson");
+        }
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (FORMAT_CSV.equals(format)) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+
+        ImportReportDTO report = run.report;
+        report.setDurationMs(System.currentTimeMillis() - start);
+        report.setRowsPerSecond(report.getTotalRows() * 1000 / Math.max(1, report.getDurationMs()));
+        logger.info("Catalog import: " + report.getTotalRows() + " rows, " + report.getInserted() + " inserted, "
+                + report.getUpdated() + " updated, " + report.getFailed() + " failed in " + report.getDurationMs() + " ms");
+        return report;
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        CsvUtil.RecordReader records = new CsvUtil.RecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(header.size());
+        for (String name : header) {
+            columns.add(normalizeKey(name));
+        }
+        List<String> record;
+        while ((record = records.next()) != null) {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < record.size(); i++) {
+                values.put(columns.get(i), record.get(i));
+            }
+            run.add(records.getRecordLine(), values);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                run.fail(lineNumber, null, "Invalid JSON");
+                continue;
+            }
+            if (node == null || !node.isObject()) {
+                run.fail(lineNumber, null, "Each line must be a JSON object");
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isNull()) {
+                    values.put(normalizeKey(field.getKey()), field.getValue().asText());
+                }
+            }
+            run.add(lineNumber, values);
+        }
+    }
+
+    /**
+     * "stock_quantity", "stockQuantity" and "Stock Quantity" all become "stockquantity".
+     */
+    private static String normalizeKey(String key) {
+        StringBuilder normalized = new StringBuilder();
+        for (char c : key.trim().toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String field(Map<String, String> values, String... keys) {
+        for (String key : keys) {
+            String value = values.get(key);
+            if (value != null && !value.isBlank()) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+
+    private static ImportRow parseRow(long line, Map<String, String> values) {
+        ImportRow row = new ImportRow();
+        row.line = line;
+        row.isbn = field(values, "isbn");
+        row.title = field(values, "title");
+        if (row.isbn == null) {
+            throw new ValidationException("isbn is required");
+        }
+        if (row.isbn.length() > MAX_ISBN_LENGTH) {
+            throw new ValidationException("isbn is too long");
+        }
+        if (row.title == null) {
+            throw new ValidationException("title is required");
+        }
+        if (row.title.length() > Constants.MAX_BOOK_TITLE_LENGTH) {
+            throw new ValidationException("title is longer than " + Constants.MAX_BOOK_TITLE_LENGTH + " characters");
+        }
+        row.description = field(values, "description");
+        if (row.description != null && row.description.length() > Constants.MAX_DESCRIPTION_LENGTH) {
+            throw new ValidationException("description is longer than " + Constants.MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        String price = field(values, "price");
+        if (price == null) {
+            throw new ValidationException("price is required");
+        }
+        try {
+            row.price = new BigDecimal(price);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("price is not a number: " + price);
+        }
+        if (row.price.signum() < 0) {
+            throw new ValidationException("price must not be negative");
+        }
+        row.stockQuantity = parseInteger(field(values, "stockquantity", "stock"), "stock_quantity");
+        if (row.stockQuantity != null && row.stockQuantity < 0) {
+            throw new ValidationException("stock_quantity must not be negative");
+        }
+        row.publicationYear = parseInteger(field(values, "publicationyear", "year"), "publication_year");
+        row.coverImageUrl = field(values, "coverimageurl", "cover");
+        row.category = lookupName(field(values, "category", "categoryname"), "category");
+        row.author = lookupName(field(values, "author", "authorname"), "author");
+        row.publisher = lookupName(field(values, "publisher", "publishername"), "publisher");
+        return row;
+    }
+
+    private static String lookupName(String value, String name) {
+        if (value != null && value.length() > MAX_NAME_LENGTH) {
+            throw new ValidationException(name + " is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static Integer parseInteger(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException(name + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * State of one import: the pending batch, the name lookup maps and the report.
+     */
+    private class ImportRun {
+        private final ImportReportDTO report = new ImportReportDTO();
+        private final List<ImportRow> batch = new ArrayList<>();
+        private final NameLookup categories = new NameLookup("categories", "category_id");
+        private final NameLookup authors = new NameLookup("authors", "author_id");
+        private final NameLookup publishers = new NameLookup("publishers", "publisher_id");
+
+        void add(long line, Map<String, String> values) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            try {
+                batch.add(parseRow(line, values));
+            } catch (ValidationException e) {
+                recordError(line, values.get("isbn"), e.getMessage());
+                return;
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void fail(long line, String isbn, String error) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            recordError(line, isbn, error);
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                writeBatch(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private void writeBatch(List<ImportRow> rows) {
+            boolean created = categories.resolve(rows, row -> row.category);
+            created |= authors.resolve(rows, row -> row.author);
+            created |= publishers.resolve(rows, row -> row.publisher);
+            if (created) {
+                catalogCache.evictLookupLists();
+            }
+
+            Set<String> isbns = new LinkedHashSet<>();
+            for (ImportRow row : rows) {
+                isbns.add(row.isbn);
+            }
+            Map<String, Integer> existing = new HashMap<>();
+            for (Map<String, Object> book : namedParameterJdbcTemplate.queryForList(
+                    "SELECT isbn, book_id FROM books WHERE isbn IN (:isbns)", new MapSqlParameterSource("isbns", isbns))) {
+                existing.put((String) book.get("isbn"), ((Number) book.get("book_id")).intValue());
+            }
+            List<ImportRow> accepted = withoutFlashSaleStock(rows, existing);
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<ImportRow> written = new ArrayList<>(accepted.size());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(UPSERT_SQL, toArgs(accepted, now)));
+                written.addAll(accepted);
+            } catch (DataAccessException e) {
+                // Retry row by row so one bad row does not cost the whole batch, and so it can be reported
+                for (ImportRow row : accepted) {
+                    try {
+                        jdbcTemplate.update(UPSERT_SQL, args(row, now));
+                        written.add(row);
+                    } catch (DataAccessException rowError) {
+                        Throwable cause = rowError.getMostSpecificCause();
+                        recordError(row.line, row.isbn, cause != null ? cause.getMessage() : rowError.getMessage());
+                    }
+                }
+            }
+
+            Set<String> seen = new HashSet<>();
+            Set<String> writtenIsbns = new LinkedHashSet<>();
+            for (ImportRow row : written) {
+                writtenIsbns.add(row.isbn);
+                if (!existing.containsKey(row.isbn) && seen.add(row.isbn)) {
+                    report.setInserted(report.getInserted() + 1);
+                } else {
+                    report.setUpdated(report.getUpdated() + 1);
+                }
+            }
+            if (!writtenIsbns.isEmpty()) {
+                bookService.reindexBooks(namedParameterJdbcTemplate.queryForList(
+                        "SELECT book_id FROM books WHERE isbn IN (:isbns)", new MapSqlParameterSource("isbns", writtenIsbns), Integer.class));
+            }
+        }
+
+        /**
+         * Drop rows that would overwrite the stock of a book on flash sale. The sale owns that stock until it
+         * ends, so the row is reported instead, the same way BookService.saveEdit refuses a stock edit.
+         */
+        private List<ImportRow> withoutFlashSaleStock(List<ImportRow> rows, Map<String, Integer> existing) {
+            List<ImportRow> kept = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                Integer bookId = existing.get(row.isbn);
+                if (row.stockQuantity != null && bookId != null && flashSaleService.isActive(bookId)) {
+                    recordError(row.line, row.isbn, "stock_quantity cannot be imported while the book is on flash sale");
+                } else {
+                    kept.add(row);
+                }
+            }
+            return kept;
+        }
+
+        private List<Object[]> toArgs(List<ImportRow> rows, Timestamp now) {
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                args.add(args(row, now));
+            }
+            return args;
+        }
+
+        private Object[] args(ImportRow row, Timestamp now) {
+            Integer categoryId = categories.idOf(row.category);
+            Integer authorId = authors.idOf(row.author);
+            Integer publisherId = publishers.idOf(row.publisher);
+            return new Object[] {
+                row.title, row.isbn, row.description, row.price, row.stockQuantity, row.publicationYear, row.coverImageUrl,
+                categoryId, authorId, publisherId, now, now,
+                row.description, row.stockQuantity, row.publicationYear, row.coverImageUrl, categoryId, authorId, publisherId
+            };
+        }
+
+        private void recordError(long line, String isbn, String error) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add(new ImportReportDTO.RowError(line, isbn, error));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    /**
+     * Case-insensitive name to id map for one lookup table, filled on demand for the whole import.
+     */
+    private class NameLookup {
+        private final String table;
+        private final String idColumn;
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        NameLookup(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+
+        Integer idOf(String name) {
+            return name == null ? null : ids.get(key(name));
+        }
+
+        /**
+         * Make sure every name used by the rows has an id, creating missing rows.
+         * @return true if any row was created
+         */
+        boolean resolve(List<ImportRow> rows, Function<ImportRow, String> nameOf) {
+            Map<String, String> missing = new HashMap<>();
+            for (ImportRow row : rows) {
+                String name = nameOf.apply(row);
+                if (name != null && !ids.containsKey(key(name))) {
+                    missing.putIfAbsent(key(name), name);
+                }
+            }
+            if (missing.isEmpty()) {
+                return false;
+            }
+            load(missing.values());
+            List<Object[]> inserts = new ArrayList<>();
+            for (Map.Entry<String, String> entry : missing.entrySet()) {
+                if (!ids.containsKey(entry.getKey())) {
+                    inserts.add(new Object[] {entry.getValue()});
+                }
+            }
+            if (inserts.isEmpty()) {
+                return false;
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (name) VALUES (?)", inserts);
+            List<String> created = new ArrayList<>(inserts.size());
+            for (Object[] insert : inserts) {
+                created.add((String) insert[0]);
+            }
+            load(created);
+            return true;
+        }
+
+        private void load(Collection<String> names) {
+            List<Map<String, Object>> found = namedParameterJdbcTemplate.queryForList(
+                    "SELECT name, MIN(" + idColumn + ") AS id FROM " + table + " WHERE name IN (:names) GROUP BY name",
+                    new MapSqlParameterSource("names", names));
+            for (Map<String, Object> row : found) {
+                ids.putIfAbsent(key((String) row.get("name")), ((Number) row.get("id")).intValue());
+            }
+        }
+
+        private String key(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static class ImportRow {
+        private long line;
+        private String title;
+        private String isbn;
+        private String description;
+        private BigDecimal price;
+        private Integer stockQuantity;
+        private Integer publicationYear;
+        private String coverImageUrl;
+        private String category;
+        private String author;
+        private String publisher;
+    }
+}
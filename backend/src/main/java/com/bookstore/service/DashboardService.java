@@ -0,0 +1,184 @@
+package com.bookstore.service;
+
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.DailySalesRollupRepository;
+import com.bookstore.repository.PaymentRepository;
+import com.bookstore.repository.ReviewRepository;
+import com.bookstore.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The admin dashboard statistics as one cached snapshot. A snapshot is five small aggregate queries run
+ * in parallel; order counts and revenue come from the daily sales rollup. Once the snapshot is older than
+ * the TTL, the next reader still gets it and starts a single background refresh, so only the very first
+ * request ever waits for the queries.
+ */
+@Service
+public class DashboardService {
+    private static final Logger logger = Logger.getLogger(DashboardService.class.getName());
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Value("${dashboard.stats.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private ExecutorService executor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(5, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stats-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = compute();
+                    snapshot = current;
+                }
+            }
+        } else if (current.isOlderThan(ttlSeconds * 1000) && refreshing.compareAndSet(false, true)) {
+            executor.execute(this::refresh);
+        }
+        return current.stats;
+    }
+
+    private void refresh() {
+        try {
+            snapshot = compute();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot; the next stale read tries again
+            logger.warning("Dashboard statistics refresh failed: " + e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Snapshot compute() {
+        long started = System.currentTimeMillis();
+        CompletableFuture<List<Object[]>> users = CompletableFuture.supplyAsync(userRepository::countUsersAndAdmins, executor);
+        CompletableFuture<Long> books = CompletableFuture.supplyAsync(bookRepository::count, executor);
+        CompletableFuture<List<Object[]>> orders = CompletableFuture.supplyAsync(dailySalesRollupRepository::sumOrderTotalsByStatus, executor);
+        CompletableFuture<Long> payments = CompletableFuture.supplyAsync(() -> paymentRepository.countByStatus("completed"), executor);
+        CompletableFuture<List<Object[]>> reviews = CompletableFuture.supplyAsync(reviewRepository::countAndAverageRating, executor);
+        try {
+            CompletableFuture.allOf(users, books, orders, payments, reviews).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+
+        Object[] userRow = users.join().get(0);
+        long totalUsers = number(userRow[0]);
+        long adminCount = number(userRow[1]);
+
+        // One rollup row per status
+        long totalOrders = 0;
+        long pendingOrders = 0;
+        long completedOrders = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Object[] row : orders.join()) {
+            long count = number(row[1]);
+            totalOrders += count;
+            if ("pending".equals(row[0])) {
+                pendingOrders = count;
+            } else if ("completed".equals(row[0])) {
+                completedOrders = count;
+            }
+            if (row[2] != null) {
+                revenue = revenue.add((BigDecimal) row[2]);
+            }
+        }
+
+        Object[] reviewRow = reviews.join().get(0);
+        double averageRating = reviewRow[1] != null ? ((Number) reviewRow[1]).doubleValue() : 0.0;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("users", Map.of(
+            "total", totalUsers,
+            "admins", adminCount,
+            "customers", totalUsers - adminCount
+        ));
+        stats.put("books", Map.of(
+            "total", books.join()
+        ));
+        stats.put("orders", Map.of(
+            "total", totalOrders,
+            "pending", pendingOrders,
+            "completed", completedOrders
+        ));
+        stats.put("revenue", Map.of(
+            "total", revenue.doubleValue(),
+            "currency", "VND"
+        ));
+        stats.put("payments", Map.of(
+            "completed", payments.join()
+        ));
+        stats.put("reviews", Map.of(
+            "total", number(reviewRow[0]),
+            "averageRating", Math.round(averageRating * 100.0) / 100.0
+        ));
+        stats.put("generatedAt", Instant.now().toString());
+        logger.fine("Dashboard statistics computed in " + (System.currentTimeMillis() - started) + " ms");
+        return new Snapshot(Map.copyOf(stats));
+    }
+
+    private static long number(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private static final class Snapshot {
+        final Map<String, Object> stats;
+        final long createdAt = System.currentTimeMillis();
+
+        Snapshot(Map<String, Object> stats) {
+            this.stats = stats;
+        }
+
+        boolean isOlderThan(long millis) {
+            return System.currentTimeMillis() - createdAt > millis;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ResourceNotFoundException;
+import com.bookstore.exception.ValidationException;
+import com.bookstore.model.Book;
+import com.bookstore.model.FlashSale;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.FlashSaleRepository;
+import com.bookstore.repository.OrderDetailRepository;
+import com.bookstore.util.Constants;
+import com.bookstore.util.StripedCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in flash-sale mode for hot books. While a sale runs, checkouts take the book's stock from a striped
+ * in-memory counter instead of the books row, so they do not queue on one InnoDB row lock. Units sold are
+ * written back to books.stock_quantity in batches by {@link #flush()}.
+ * Nothing sold is lost in a crash: the order lines are committed with their orders, and on startup each
+ * running sale is reconciled from its flash_sales row and the order lines written since it started.
+ */
+@Service
+public class FlashSaleService {
+    private static final Logger logger = Logger.getLogger(FlashSaleService.class.getName());
+    private static final String DECREMENT_SQL = "UPDATE books SET stock_quantity = stock_quantity - ?, updated_at = CURRENT_TIMESTAMP WHERE book_id = ?";
+
+    @Autowired
+    private FlashSaleRepository flashSaleRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    // 0 means one stripe per available core
+    @Value("${flash-sale.stripes:0}")
+    private int stripes;
+
+    private final Map<Integer, Sale> sales = new ConcurrentHashMap<>();
+    // Sales that just ended stay here for one more flush, to catch takes that raced with the end
+    private final Map<Integer, Sale> ending = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        for (FlashSale sale : flashSaleRepository.findAll()) {
+            reconcile(sale);
+        }
+        if (!sales.isEmpty()) {
+            logger.info("Flash sales: reconciled " + sales.size() + " running sales");
+        }
+    }
+
+    public boolean isActive(Integer bookId) {
+        return sales.containsKey(bookId);
+    }
+
+    /**
+     * Take qty units of a flash-sale book. Inside a transaction the units go back by themselves if it rolls back.
+     * @return false if the sale has fewer than qty units left
+     */
+    public boolean tryTake(Integer bookId, int qty) {
+        Sale sale = sales.get(bookId);
+        if (sale == null || !sale.stock.tryTake(qty)) {
+            return false;
+        }
+        sale.sold.add(qty);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        giveBack(sale, qty);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Put units back, e.g. for a cancelled order. Inside a transaction this happens only once it commits.
+     */
+    public void giveBack(Integer bookId, int qty) {
+        Sale sale = sales.get(bookId);
+        if (sale == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    giveBack(sale, qty);
+                }
+            });
+        } else {
+            giveBack(sale, qty);
+        }
+    }
+
+    private static void giveBack(Sale sale, int qty) {
+        sale.stock.add(qty);
+        sale.sold.add(-qty);
+    }
+
+    /**
+     * A checkout that was already waiting on the books row when the sale started took its units from the row.
+     * Take them from the counter as well so the sale cannot sell them again; they are already out of
+     * books.stock_quantity, so they are never flushed.
+     * @return false if the counter cannot cover them
+     */
+    public boolean absorbRowDecrement(Integer bookId, int qty) {
+        Sale sale = sales.get(bookId);
+        if (sale == null) {
+            return true;
+        }
+        if (!sale.stock.tryTake(qty)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        sale.stock.add(qty);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Put a book into flash-sale mode with its current stock.
+     */
+    @Transactional
+    public FlashSale start(Integer bookId) {
+        if (sales.containsKey(bookId)) {
+            throw new ValidationException("Book " + bookId + " is already on flash sale");
+        }
+        // The row lock makes checkouts that are mid-decrement finish first, so the stock read here includes
+        // them; anything queued behind it is caught by absorbRowDecrement
+        Book book = bookRepository.findByIdForUpdate(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found: " + bookId));
+        int stock = book.getStockQuantity() != null ? Math.max(0, book.getStockQuantity()) : 0;
+        FlashSale flashSale = flashSaleRepository.save(
+                new FlashSale(bookId, stock, orderDetailRepository.findMaxDetailId(), LocalDateTime.now()));
+        Sale sale = new Sale(stock, stripeCount());
+        sales.put(bookId, sale);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    sales.remove(bookId, sale);
+                }
+            }
+        });
+        logger.info("Flash sale started for book " + bookId + " with " + stock + " units");
+        return flashSale;
+    }
+
+    /**
+     * Leave flash-sale mode: write back what was sold and return the book to the row-locking path.
+     */
+    @Transactional
+    public void end(Integer bookId) {
+        Sale sale = sales.remove(bookId);
+        if (sale == null) {
+            throw new ResourceNotFoundException("Book " + bookId + " is not on flash sale");
+        }
+        ending.put(bookId, sale);
+        flashSaleRepository.deleteById(bookId);
+        flush();
+        logger.info("Flash sale ended for book " + bookId);
+    }
+
+    public List<Map<String, Object>> list() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (FlashSale flashSale : flashSaleRepository.findAll()) {
+            Sale sale = sales.get(flashSale.getBookId());
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("bookId", flashSale.getBookId());
+            entry.put("initialStock", flashSale.getInitialStock());
+            entry.put("startedAt", flashSale.getStartedAt());
+            entry.put("remaining", sale != null ? sale.stock.sum() : null);
+            entry.put("unflushed", sale != null ? sale.sold.sum() - sale.flushed : null);
+            list.add(entry);
+        }
+        return list;
+    }
+
+    /**
+     * Write the units sold since the last flush to books.stock_quantity, one batched statement for all books.
+     */
+    @Scheduled(fixedDelayString = "${flash-sale.flush-interval-ms:500}")
+    public synchronized void flush() {
+        Map<Integer, Sale> toFlush = new HashMap<>(ending);
+        toFlush.putAll(sales);
+        List<Object[]> args = new ArrayList<>();
+        List<Sale> flushed = new ArrayList<>();
+        List<Long> targets = new ArrayList<>();
+        for (Map.Entry<Integer, Sale> entry : toFlush.entrySet()) {
+            Sale sale = entry.getValue();
+            // sold is only ever read as a whole here, so a take racing this read is simply picked up next time
+            long sold = sale.sold.sum();
+            long delta = sold - sale.flushed;
+            if (delta != 0) {
+                args.add(new Object[] {delta, entry.getKey()});
+                flushed.add(sale);
+                targets.add(sold);
+            }
+        }
+        if (!args.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+            } catch (RuntimeException e) {
+                logger.warning("Flash sale flush failed, will retry: " + e.getMessage());
+                return;
+            }
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).flushed = targets.get(i);
+            }
+            for (Object[] arg : args) {
+                catalogCache.evictBook((Integer) arg[1]);
+            }
+        }
+        for (Map.Entry<Integer, Sale> entry : toFlush.entrySet()) {
+            Sale sale = entry.getValue();
+            if (ending.get(entry.getKey()) == sale) {
+                if (sale.flushedAfterEnd) {
+                    ending.remove(entry.getKey());
+                }
+                sale.flushedAfterEnd = true;
+            }
+        }
+    }
+
+    /**
+     * Rebuild a sale's counter after a restart from the order lines committed since it started.
+     */
+    private void reconcile(FlashSale flashSale) {
+        Integer bookId = flashSale.getBookId();
+        long sold = orderDetailRepository.sumUnitsAfter(bookId, flashSale.getStartDetailId(), Constants.ORDER_STATUS_CANCELLED);
+        int remaining = (int) Math.max(0, flashSale.getInitialStock() - sold);
+        jdbcTemplate.update("UPDATE books SET stock_quantity = ?, updated_at = CURRENT_TIMESTAMP WHERE book_id = ?", remaining, bookId);
+        catalogCache.evictBook(bookId);
+        sales.put(bookId, new Sale(remaining, stripeCount()));
+    }
+
+    private int stripeCount() {
+        return stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static final class Sale {
+        final StripedCounter stock;
+        // Units sold minus units given back since the sale started; flushed is the part already in books
+        final LongAdder sold = new LongAdder();
+        volatile long flushed;
+        boolean flushedAfterEnd;
+
+        Sale(int stock, int stripes) {
+            this.stock = new StripedCounter(stock, stripes);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ValidationException;
+import com.bookstore.util.BoundedCache;
+import com.bookstore.util.JwtUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Idempotency-Key support for write endpoints. The first request with a key runs and its response is kept
+ * for the key's TTL; a retry with the same key gets that response back without reaching the service layer,
+ * and a duplicate that arrives while the first is still running waits for it instead of running again.
+ * Failures (exceptions and 5xx) are not kept, so the client can retry them with the same key.
+ * Keys live in memory only, which covers client retries against this instance. Requests still running are held
+ * apart from the bounded store of finished responses, so evicting old keys can never let a duplicate of a
+ * running request through.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = Logger.getLogger(IdempotencyService.class.getName());
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    // How long a duplicate waits for the original request before giving up with 409
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    // Finished responses, bounded and expiring
+    private BoundedCache<String, Entry> store;
+    // Requests still running; an entry moves to the store when its response is kept, or is dropped on failure
+    private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        store = new BoundedCache<>("idempotency", maxKeys, ttlSeconds * 1000);
+    }
+
+    /**
+     * Run the action once per (scope, key). Without a key the action simply runs.
+     * @param scope keeps keys of different endpoints and callers apart
+     * @param request the request body; reusing a key for a different body is rejected with 422
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException(KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + ":" + key;
+        Entry mine = new Entry(fingerprint(request));
+        Entry existing = inFlight.putIfAbsent(storeKey, mine);
+        if (existing == null) {
+            // A finished entry is put in the store before it leaves inFlight, so it is found here
+            existing = store.get(storeKey);
+            if (existing != null) {
+                inFlight.remove(storeKey, mine);
+            }
+        }
+        if (existing != null) {
+            return replay(existing, mine, scope, key, request, action);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(storeKey, mine);
+            mine.response.completeExceptionally(e);
+            throw e;
+        }
+        mine.response.complete(response);
+        if (!response.getStatusCode().is5xxServerError()) {
+            store.put(storeKey, mine);
+        }
+        inFlight.remove(storeKey, mine);
+        return response;
+    }
+
+    /**
+     * The scope a caller's keys live in: the user id from a valid bearer token, or else the owner named by the
+     * request body (e.g. "user:12"), since most callers reach these endpoints without a token.
+     * @param endpoint keeps keys of different endpoints apart
+     */
+    public String scope(String endpoint, String authorization, String bodyOwner) {
+        Integer userId = authorization != null && authorization.startsWith("Bearer ")
+                ? jwtUtil.getUserIdFromToken(authorization.substring(7)) : null;
+        if (userId != null) {
+            return endpoint + ":user:" + userId;
+        }
+        return endpoint + ":" + (bodyOwner != null ? bodyOwner : "anonymous");
+    }
+
+    public Map<String, Object> stats() {
+        return store.stats();
+    }
+
+    private ResponseEntity<?> replay(Entry existing, Entry mine, String scope, String key, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (!existing.fingerprint.equals(mine.fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", KEY_HEADER + " đã được dùng cho một yêu cầu khác"));
+        }
+        ResponseEntity<?> original;
+        try {
+            original = existing.response.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // The original failed and gave up the key, so this request is free to try again
+            return execute(scope, key, request, action);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Yêu cầu với " + KEY_HEADER + " này vẫn đang được xử lý"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+        logger.info("Replaying response for " + KEY_HEADER + " " + key);
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Request body cannot be fingerprinted: " + e.getMessage());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
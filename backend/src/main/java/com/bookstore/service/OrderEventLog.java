@@ -0,0 +1,144 @@
+package com.bookstore.service;
+
+import com.bookstore.model.OrderStatusEvent;
+import com.bookstore.repository.OrderStatusEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Append-only order status timeline. Callers only enqueue; a single background writer drains the queue
+ * and inserts whatever has piled up as one JDBC batch, so a status change costs the request no extra
+ * round trip. Events are queued only once the surrounding transaction commits, so a rolled-back change
+ * leaves no trace. If the queue is ever full the event is written inline rather than dropped.
+ */
+@Service
+public class OrderEventLog {
+    private static final Logger logger = Logger.getLogger(OrderEventLog.class.getName());
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String INSERT_SQL =
+            "INSERT INTO order_status_events (order_id, from_status, to_status, description, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Value("${orders.event-log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${orders.event-log.batch-size:500}")
+    private int batchSize;
+
+    private BlockingQueue<OrderStatusEvent> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "order-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // The writer notices within one poll timeout; not interrupting lets a batch in flight finish
+        running = false;
+        writer.join(5000);
+        // Whatever the writer did not get to
+        List<OrderStatusEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        write(rest);
+    }
+
+    /**
+     * Record a status change. fromStatus is null for a new order.
+     */
+    public void record(Integer orderId, String fromStatus, String toStatus, String description) {
+        OrderStatusEvent event = new OrderStatusEvent(orderId, fromStatus, toStatus, description, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    public List<OrderStatusEvent> timeline(Integer orderId) {
+        return orderStatusEventRepository.findByOrderIdOrderByEventIdAsc(orderId);
+    }
+
+    private void enqueue(OrderStatusEvent event) {
+        if (!queue.offer(event)) {
+            write(List.of(event));
+        }
+    }
+
+    private void drainLoop() {
+        List<OrderStatusEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                OrderStatusEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<OrderStatusEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(events.size());
+        for (OrderStatusEvent event : events) {
+            args.add(new Object[] {event.getOrderId(), event.getFromStatus(), event.getToStatus(),
+                    event.getDescription(), Timestamp.valueOf(event.getCreatedAt())});
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, args);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    logger.severe("Could not write " + events.size() + " order status events: " + e.getMessage());
+                    return;
+                }
+                logger.warning("Order status event write failed, retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(attempt * 500L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
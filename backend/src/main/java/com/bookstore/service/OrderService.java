@@ -1,22 +1,51 @@
 package com.bookstore.service;
 
+import com.bookstore.dto.CursorPage;
 import com.bookstore.model.Order;
 import com.bookstore.model.OrderDetail;
+import com.bookstore.model.OrderStatusEvent;
 import com.bookstore.model.Book;
+import com.bookstore.model.UserOrderSummary;
 import com.bookstore.repository.OrderRepository;
 import com.bookstore.repository.OrderDetailRepository;
 import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.UserOrderSummaryRepository;
+import com.bookstore.exception.ConflictException;
+import com.bookstore.exception.ValidationException;
+import com.bookstore.util.Constants;
+import com.bookstore.util.CursorUtil;
+import com.bookstore.util.OrderStateMachine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
+    private static final Logger logger = Logger.getLogger(OrderService.class.getName());
+    private static final String EXPIRED_REASON = "Payment not received before the reservation expired";
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO order_details (order_id, book_id, quantity, unit_price, book_title, book_isbn, cover_image_url) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -26,6 +55,42 @@ public class OrderService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BestsellerService bestsellerService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserOrderSummaryRepository userOrderSummaryRepository;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    @Value("${orders.user-summary.rebuild-on-startup:true}")
+    private boolean rebuildUserSummariesOnStartup;
+
+    @Value("${orders.line-snapshots.backfill-on-startup:true}")
+    private boolean backfillLineSnapshotsOnStartup;
+
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
@@ -38,60 +103,428 @@ public class OrderService {
         return orderRepository.findByUserId(userId);
     }
 
+    public List<Order> getOrdersByUserId(Integer userId, boolean includeItems) {
+        List<Order> orders = orderRepository.findByUserId(userId);
+        return includeItems ? attachItems(orders) : orders;
+    }
+
+    /**
+     * One page of a user's orders, newest first. The cursor is the (orderDate, orderId) of the last order
+     * of the previous page, so deep pages cost the same as the first.
+     */
+    public CursorPage<Order> getOrdersByUserPage(Integer userId, String cursor, Integer size, boolean includeItems) {
+        int pageSize = CursorUtil.pageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstPageByUser(userId, limit);
+        } else {
+            String[] parts = CursorUtil.decode(cursor, 2);
+            try {
+                rows = orderRepository.findPageByUserBefore(userId, LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]), limit);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new ValidationException("Invalid cursor");
+            }
+        }
+        boolean hasMore = rows.size() > pageSize;
+        List<Order> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        if (includeItems) {
+            attachItems(items);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Order last = items.get(items.size() - 1);
+            nextCursor = CursorUtil.encode(last.getOrderDate(), last.getOrderId());
+        }
+        return new CursorPage<>(items, nextCursor, hasMore, items.size());
+    }
+
+    /**
+     * Save the order with its line items and take their stock in the same transaction.
+     * Items are priced from the catalog and the total is their sum; an order without items is rejected.
+     * Throws ConflictException (and rolls everything back) when any book has too few copies left.
+     * A VNPay order only holds its stock until the reservation deadline; see {@link #confirmPayment}.
+     */
+    @Transactional
     public Order createOrder(Order order) {
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
-        if (order.getStatus() == null) {
-            order.setStatus("pending");
+        // Every order starts out pending; later statuses are reached through updateOrder and its state machine
+        if (order.getStatus() != null && !Constants.ORDER_STATUS_PENDING.equalsIgnoreCase(order.getStatus())) {
+            throw new ValidationException("A new order must be " + Constants.ORDER_STATUS_PENDING + ", not " + order.getStatus());
+        }
+        order.setStatus(Constants.ORDER_STATUS_PENDING);
+        order.setVersion(0L);
+        List<OrderDetail> lines = mergeLines(order.getItems());
+        if (lines.isEmpty()) {
+            throw new ValidationException("An order needs at least one item");
+        }
+        order.setTotalAmount(priceLines(lines));
+        takeStock(lines);
+        boolean reserve = Constants.PAYMENT_METHOD_VNPAY.equalsIgnoreCase(order.getPaymentMethod());
+        order.setReservedUntil(reserve ? reservationService.newDeadline() : null);
+
+        Order saved = orderRepository.save(order);
+        if (reserve) {
+            // Tracked before commit: if the transaction rolls back, the expiry finds no order and does nothing
+            reservationService.track(saved.getOrderId(), saved.getReservedUntil());
+        }
+        for (OrderDetail line : lines) {
+            line.setOrderId(saved.getOrderId());
         }
-        return orderRepository.save(order);
+        insertLines(lines);
+        saved.setItems(lines);
+        bestsellerService.recordOrder(saved, lines, 1);
+        recordAggregates(saved, lines, null, null, saved.getStatus(), saved.getTotalAmount());
+        orderEventLog.record(saved.getOrderId(), null, saved.getStatus(), "Order placed");
+        return saved;
     }
 
-    public Order updateOrder(Integer id, Order orderDetails) {
-        return orderRepository.findById(id).map(order -> {
-            if (orderDetails.getStatus() != null) {
-                order.setStatus(orderDetails.getStatus());
+    /**
+     * Set each line's unit price from one batched book lookup and return the order total.
+     */
+    private BigDecimal priceLines(List<OrderDetail> lines) {
+        Map<Integer, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(lines.stream().map(OrderDetail::getBookId).collect(Collectors.toList()))) {
+            books.put(book.getBookId(), book);
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderDetail line : lines) {
+            Book book = books.get(line.getBookId());
+            if (book == null) {
+                throw new ValidationException("Book not found: " + line.getBookId());
             }
-            if (orderDetails.getTotalAmount() != null) {
-                order.setTotalAmount(orderDetails.getTotalAmount());
+            if (book.getPrice() == null) {
+                throw new ValidationException("Book " + line.getBookId() + " has no price");
             }
-            if (orderDetails.getShippingAddress() != null) {
-                order.setShippingAddress(orderDetails.getShippingAddress());
+            line.setUnitPrice(book.getPrice());
+            line.setBookTitle(book.getTitle());
+            line.setBookIsbn(book.getIsbn());
+            line.setCoverImageUrl(book.getCoverImageUrl());
+            total = total.add(book.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return total;
+    }
+
+    /**
+     * Write all lines as one JDBC batch. OrderDetail uses IDENTITY keys, which makes Hibernate insert row by row;
+     * with rewriteBatchedStatements the driver sends this as a single multi-row INSERT. It runs on the
+     * transaction's connection, so it commits or rolls back together with the order.
+     */
+    private void insertLines(List<OrderDetail> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (OrderDetail line : lines) {
+            args.add(new Object[] {line.getOrderId(), line.getBookId(), line.getQuantity(), line.getUnitPrice(),
+                    line.getBookTitle(), line.getBookIsbn(), line.getCoverImageUrl()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, args);
+    }
+
+    /**
+     * Collapse repeated books into one line each, sorted by book id. Taking row locks in a fixed
+     * order means two checkouts over the same books queue behind each other instead of deadlocking.
+     */
+    private static List<OrderDetail> mergeLines(List<OrderDetail> items) {
+        Map<Integer, OrderDetail> merged = new TreeMap<>();
+        if (items == null) {
+            return new ArrayList<>();
+        }
+        for (OrderDetail item : items) {
+            if (item == null || item.getBookId() == null) {
+                throw new ValidationException("Each item needs a bookId");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new ValidationException("Quantity must be positive for book " + item.getBookId());
             }
-            order.setUpdatedAt(LocalDateTime.now());
-            return orderRepository.save(order);
-        }).orElseThrow(() -> new RuntimeException("Order not found"));
+            merged.merge(item.getBookId(), new OrderDetail(null, null, item.getBookId(), item.getQuantity(), null),
+                    (a, b) -> {
+                        a.setQuantity(a.getQuantity() + b.getQuantity());
+                        return a;
+                    });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * One conditional UPDATE per book: the row lock is held only from that statement to commit,
+     * and no stock value is read into Java and written back, so no update can be lost.
+     * Books on flash sale take their stock from the in-memory counter instead and never touch the row.
+     */
+    private void takeStock(List<OrderDetail> lines) {
+        List<OrderDetail> sorted = new ArrayList<>(lines);
+        sorted.sort(Comparator.comparing(OrderDetail::getBookId));
+        for (OrderDetail line : sorted) {
+            Integer bookId = line.getBookId();
+            boolean taken;
+            if (flashSaleService.isActive(bookId)) {
+                taken = flashSaleService.tryTake(bookId, line.getQuantity());
+            } else {
+                taken = bookRepository.decrementStock(bookId, line.getQuantity()) == 1
+                        && flashSaleService.absorbRowDecrement(bookId, line.getQuantity());
+                catalogCache.evictBookAfterCommit(bookId);
+            }
+            if (!taken) {
+                String title = bookRepository.findById(bookId).map(Book::getTitle).orElse("book " + bookId);
+                throw new ConflictException("Not enough stock for \"" + title + "\" (book " + bookId + ")");
+            }
+        }
+    }
+
+    private void returnStock(List<OrderDetail> lines) {
+        List<OrderDetail> sorted = new ArrayList<>(lines);
+        sorted.sort(Comparator.comparing(OrderDetail::getBookId));
+        for (OrderDetail line : sorted) {
+            if (flashSaleService.isActive(line.getBookId())) {
+                flashSaleService.giveBack(line.getBookId(), line.getQuantity());
+            } else {
+                bookRepository.incrementStock(line.getBookId(), line.getQuantity());
+                catalogCache.evictBookAfterCommit(line.getBookId());
+            }
+        }
+    }
+
+    /**
+     * The payment for an order arrived: its stock is kept for good.
+     * @return false if the reservation had already expired and the order was cancelled
+     */
+    @Transactional
+    public boolean confirmPayment(Integer orderId) {
+        reservationService.release(orderId);
+        if (orderRepository.confirmReservation(orderId, LocalDateTime.now()) == 1) {
+            orderEventLog.record(orderId, Constants.ORDER_STATUS_PENDING, Constants.ORDER_STATUS_PENDING, "Payment received");
+            return true;
+        }
+        // Already confirmed (e.g. a repeated VNPay return) or cancelled: the timeline already has its event
+        return orderRepository.findById(orderId).map(order -> {
+            boolean kept = !isCancelled(order.getStatus());
+            if (!kept) {
+                logger.warning("Payment received for order " + orderId + " after it was cancelled");
+            }
+            return kept;
+        }).orElse(false);
+    }
+
+    /**
+     * Cancel the unpaid orders whose reservation ran out and put their stock back.
+     * Each order gets its own transaction, so one failure does not hold up the rest.
+     */
+    @Scheduled(fixedDelayString = "${orders.reservation.tick-millis:1000}")
+    public void expireReservations() {
+        for (Integer orderId : reservationService.pollExpired()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> expireReservation(orderId));
+            } catch (RuntimeException e) {
+                logger.warning("Could not expire reservation of order " + orderId + ": " + e.getMessage());
+                reservationService.track(orderId, LocalDateTime.now().plusMinutes(1));
+            }
+        }
     }
 
+    private void expireReservation(Integer orderId) {
+        if (orderRepository.expireReservation(orderId, EXPIRED_REASON, LocalDateTime.now()) == 0) {
+            // Paid, cancelled or deleted in the meantime; only keep watching if the deadline moved
+            orderRepository.findById(orderId)
+                    .filter(order -> order.getReservedUntil() != null)
+                    .ifPresent(order -> reservationService.track(orderId, order.getReservedUntil()));
+            return;
+        }
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        List<OrderDetail> lines = orderDetailRepository.findByOrderId(orderId);
+        returnStock(lines);
+        bestsellerService.recordOrder(order, lines, -1);
+        recordAggregates(order, lines, Constants.ORDER_STATUS_PENDING, order.getTotalAmount(), order.getStatus(), order.getTotalAmount());
+        orderEventLog.record(orderId, Constants.ORDER_STATUS_PENDING, order.getStatus(), EXPIRED_REASON);
+        logger.info("Order " + orderId + " cancelled: reservation expired");
+    }
+
+    /**
+     * Optimistic update: the order is read without a lock and written back only if its version has not moved,
+     * either since that read or since the version the caller sent with orderDetails. A status change must be
+     * allowed by {@link OrderStateMachine}. Both failures are a {@link ConflictException}; the caller reloads and retries.
+     * Only the status and shipping address can change; the total stays the server-priced one.
+     */
+    @Transactional
+    public Order updateOrder(Integer id, Order orderDetails) {
+        Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
+        long expectedVersion = expectVersion(order, orderDetails.getVersion());
+        String previousStatus = order.getStatus();
+        BigDecimal previousTotal = order.getTotalAmount();
+        String status = previousStatus;
+        if (orderDetails.getStatus() != null && !orderDetails.getStatus().equalsIgnoreCase(previousStatus)) {
+            checkTransition(order, orderDetails.getStatus());
+            status = OrderStateMachine.normalize(orderDetails.getStatus());
+        }
+        // The total was priced from the order's lines when it was placed; a client-sent total is ignored
+        BigDecimal total = previousTotal;
+        String address = orderDetails.getShippingAddress() != null ? orderDetails.getShippingAddress() : order.getShippingAddress();
+        Order saved = writeIfUnchanged(order, expectedVersion, status, total, address);
+        applyStatusChange(saved, previousStatus);
+        recordAggregates(saved, null, previousStatus, previousTotal, saved.getStatus(), saved.getTotalAmount());
+        if (!saved.getStatus().equalsIgnoreCase(previousStatus)) {
+            orderEventLog.record(id, previousStatus, saved.getStatus(), "Status changed");
+        }
+        return saved;
+    }
+
+    @Transactional
     public void deleteOrder(Integer id) {
-        orderRepository.deleteById(id);
+        Optional<Order> order = orderRepository.findById(id);
+        if (order.isEmpty()) {
+            return;
+        }
+        Order o = order.get();
+        List<OrderDetail> lines = orderDetailRepository.findByOrderId(id);
+        if (orderRepository.deleteIfVersion(id, o.getVersion()) == 0) {
+            throw concurrentChange(id);
+        }
+        reservationService.release(id);
+        if (!isCancelled(o.getStatus())) {
+            returnStock(lines);
+            bestsellerService.recordOrder(o, lines, -1);
+        }
+        recordAggregates(o, lines, o.getStatus(), o.getTotalAmount(), null, null);
+    }
+
+    /**
+     * Bring every per-order aggregate up to date with one order change: the user's summary, the daily sales
+     * rollup and the analytics fact table. A null status means the order does not exist on that side.
+     */
+    private void recordAggregates(Order order, List<OrderDetail> lines, String oldStatus, BigDecimal oldTotal,
+                                  String newStatus, BigDecimal newTotal) {
+        updateUserSummary(order, oldStatus, oldTotal, newStatus, newTotal);
+        salesRollupService.recordChange(order, lines, oldStatus, oldTotal, newStatus, newTotal);
+        salesAnalyticsService.recordChange(order, lines, oldStatus, newStatus);
+    }
+
+    /**
+     * Apply one order's change to its user's summary. A null status means the order does not exist
+     * on that side (just created or deleted); cancelled orders count for nothing.
+     */
+    private void updateUserSummary(Order order, String oldStatus, BigDecimal oldTotal, String newStatus, BigDecimal newTotal) {
+        if (order.getUserId() == null) {
+            return;
+        }
+        int countDelta = (counts(newStatus) ? 1 : 0) - (counts(oldStatus) ? 1 : 0);
+        BigDecimal spentDelta = amountIf(counts(newStatus), newTotal).subtract(amountIf(counts(oldStatus), oldTotal));
+        if (countDelta != 0 || spentDelta.signum() != 0 || oldStatus == null) {
+            userOrderSummaryRepository.applyDelta(order.getUserId(), countDelta, spentDelta, order.getOrderDate());
+        }
+    }
+
+    private static boolean counts(String status) {
+        return status != null && !isCancelled(status);
+    }
+
+    private static BigDecimal amountIf(boolean counted, BigDecimal amount) {
+        return counted && amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    public UserOrderSummary getUserSummary(Integer userId) {
+        return userOrderSummaryRepository.findById(userId).orElseGet(() -> new UserOrderSummary(userId));
+    }
+
+    /**
+     * Recompute every user's summary from the orders table.
+     * @return number of users with a summary
+     */
+    @Transactional
+    public int rebuildUserSummaries() {
+        userOrderSummaryRepository.deleteAllSummaries();
+        return userOrderSummaryRepository.insertAllSummaries(Constants.ORDER_STATUS_CANCELLED);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initUserSummaries() {
+        if (rebuildUserSummariesOnStartup) {
+            rebuildUserSummaries();
+        }
+    }
+
+    private static long expectVersion(Order order, Long clientVersion) {
+        long current = order.getVersion() != null ? order.getVersion() : 0L;
+        if (clientVersion != null && clientVersion != current) {
+            throw concurrentChange(order.getOrderId());
+        }
+        return current;
+    }
+
+    private static void checkTransition(Order order, String newStatus) {
+        if (OrderStateMachine.normalize(newStatus) == null) {
+            throw new ValidationException("Unknown order status: " + newStatus);
+        }
+        if (!OrderStateMachine.canMove(order.getStatus(), newStatus)) {
+            throw new ConflictException("Order " + order.getOrderId() + " cannot go from " + order.getStatus()
+                    + " to " + newStatus + "; allowed: " + OrderStateMachine.nextStatuses(order.getStatus()));
+        }
+    }
+
+    private static ConflictException concurrentChange(Integer orderId) {
+        return new ConflictException("Order " + orderId + " was changed by someone else; reload it and try again");
+    }
+
+    /**
+     * Write the new values if the order is still at expectedVersion. An order that moves on from pending
+     * (confirmed by an admin, cancelled, ...) also gives up its reservation, so it no longer expires.
+     * The loaded entity is only changed after the write, once the update has detached it, so Hibernate
+     * never flushes an unconditional update of its own.
+     */
+    private Order writeIfUnchanged(Order order, long expectedVersion, String status, BigDecimal totalAmount, String shippingAddress) {
+        boolean settles = order.getReservedUntil() != null && !Constants.ORDER_STATUS_PENDING.equalsIgnoreCase(status);
+        LocalDateTime reservedUntil = settles ? null : order.getReservedUntil();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.updateIfVersion(order.getOrderId(), expectedVersion, status, totalAmount,
+                shippingAddress, order.getCancellationReason(), reservedUntil, now);
+        if (updated == 0) {
+            throw concurrentChange(order.getOrderId());
+        }
+        order.setStatus(status);
+        order.setTotalAmount(totalAmount);
+        order.setShippingAddress(shippingAddress);
+        order.setReservedUntil(reservedUntil);
+        order.setUpdatedAt(now);
+        order.setVersion(expectedVersion + 1);
+        if (settles) {
+            reservationService.release(order.getOrderId());
+        }
+        return order;
+    }
+
+    /**
+     * Keep stock and the bestseller counters in step when an order enters or leaves the cancelled state.
+     * Cancelled is final in {@link OrderStateMachine}, so today only the way in happens; the way back
+     * would take the stock again and fail with a conflict if it is gone.
+     */
+    private void applyStatusChange(Order order, String previousStatus) {
+        boolean wasCancelled = isCancelled(previousStatus);
+        boolean isCancelled = isCancelled(order.getStatus());
+        if (wasCancelled == isCancelled) {
+            return;
+        }
+        List<OrderDetail> lines = orderDetailRepository.findByOrderId(order.getOrderId());
+        if (isCancelled) {
+            returnStock(lines);
+        } else {
+            takeStock(lines);
+        }
+        bestsellerService.recordOrder(order, lines, isCancelled ? -1 : 1);
+    }
+
+    private static boolean isCancelled(String status) {
+        return Constants.ORDER_STATUS_CANCELLED.equalsIgnoreCase(status);
     }
 
     public Map<String, Object> getOrderDetails(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        // Get order details (items)
-        List<OrderDetail> orderDetails = orderDetailRepository.findByOrderId(orderId);
-        
-        // Convert to map with book information
-        List<Map<String, Object>> items = orderDetails.stream().map(detail -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("detailId", detail.getDetailId());
-            item.put("bookId", detail.getBookId());
-            item.put("quantity", detail.getQuantity());
-            item.put("price", detail.getUnitPrice());
-            
-            // Get book title
-            Optional<Book> book = bookRepository.findById(detail.getBookId());
-            if (book.isPresent()) {
-                item.put("bookTitle", book.get().getTitle());
-            } else {
-                item.put("bookTitle", "Sách không tồn tại");
-            }
-            
-            return item;
-        }).collect(Collectors.toList());
+        // Get order details (items); titles come from the snapshot on each line, not from the books table
+        List<Map<String, Object>> items = orderDetailRepository.findByOrderId(orderId).stream()
+                .map(OrderService::toItem)
+                .collect(Collectors.toList());
         
         Map<String, Object> details = new HashMap<>();
         details.put("orderId", order.getOrderId());
@@ -107,32 +540,89 @@ public class OrderService {
         return details;
     }
 
+    private static Map<String, Object> toItem(OrderDetail detail) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("detailId", detail.getDetailId());
+        item.put("bookId", detail.getBookId());
+        item.put("quantity", detail.getQuantity());
+        item.put("price", detail.getUnitPrice());
+        item.put("bookTitle", detail.getBookTitle() != null ? detail.getBookTitle() : "Sách không tồn tại");
+        item.put("isbn", detail.getBookIsbn());
+        item.put("coverImageUrl", detail.getCoverImageUrl());
+        return item;
+    }
+
+    /**
+     * Fill in the items of many orders with one query, e.g. for the order history page.
+     */
+    public List<Order> attachItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Integer, List<OrderDetail>> byOrder = orderDetailRepository
+                .findByOrderIdIn(orders.stream().map(Order::getOrderId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+        for (Order order : orders) {
+            order.setItems(byOrder.getOrDefault(order.getOrderId(), new ArrayList<>()));
+        }
+        return orders;
+    }
+
+    /**
+     * Give order lines written before titles were snapshotted their book's current title, ISBN and cover.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillLineSnapshots() {
+        if (!backfillLineSnapshotsOnStartup) {
+            return;
+        }
+        int updated = orderDetailRepository.backfillBookSnapshots();
+        if (updated > 0) {
+            logger.info("Order lines: backfilled book snapshots on " + updated + " lines");
+        }
+    }
+
     public List<Map<String, Object>> getOrderHistory(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        List<Map<String, Object>> history = new java.util.ArrayList<>();
-        
-        Map<String, Object> entry = new HashMap<>();
-        entry.put("status", order.getStatus());
-        entry.put("timestamp", order.getUpdatedAt());
-        entry.put("description", "Order status: " + order.getStatus());
-        history.add(entry);
-        
+        List<Map<String, Object>> history = new ArrayList<>();
+        for (OrderStatusEvent event : orderEventLog.timeline(orderId)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("status", event.getToStatus());
+            entry.put("previousStatus", event.getFromStatus());
+            entry.put("timestamp", event.getCreatedAt());
+            entry.put("description", event.getDescription());
+            history.add(entry);
+        }
+        if (history.isEmpty()) {
+            // Orders from before the event log have no timeline; show their current status
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("status", order.getStatus());
+            entry.put("timestamp", order.getUpdatedAt());
+            entry.put("description", "Order status: " + order.getStatus());
+            history.add(entry);
+        }
         return history;
     }
 
+    @Transactional
     public Order cancelOrder(Integer orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        if ("delivered".equalsIgnoreCase(order.getStatus()) || 
-            "cancelled".equalsIgnoreCase(order.getStatus())) {
-            throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
+        if (!OrderStateMachine.canMove(order.getStatus(), Constants.ORDER_STATUS_CANCELLED)) {
+            throw new ConflictException("Cannot cancel order with status: " + order.getStatus());
         }
         
-        order.setStatus("cancelled");
-        order.setUpdatedAt(LocalDateTime.now());
-        return orderRepository.save(order);
+        String previousStatus = order.getStatus();
+        Order saved = writeIfUnchanged(order, expectVersion(order, null), Constants.ORDER_STATUS_CANCELLED,
+                order.getTotalAmount(), order.getShippingAddress());
+        applyStatusChange(saved, previousStatus);
+        recordAggregates(saved, null, previousStatus, saved.getTotalAmount(), saved.getStatus(), saved.getTotalAmount());
+        orderEventLog.record(orderId, previousStatus, saved.getStatus(), "Order cancelled");
+        return saved;
     }
 }
@@ -4,25 +4,28 @@ import com.bookstore.dto.ReportDTO;
 import com.bookstore.dto.ReportDTO.DailyRevenueDTO;
 import com.bookstore.dto.ReportDTO.DailyOrderDTO;
 import com.bookstore.dto.ReportDTO.CategorySalesDTO;
-import com.bookstore.model.Order;
-import com.bookstore.model.OrderDetail;
 import com.bookstore.repository.*;
+import com.bookstore.util.Constants;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 @Service
 public class ReportService {
-    @Autowired
-    private OrderRepository orderRepository;
+    private static final Logger logger = Logger.getLogger(ReportService.class.getName());
+
+    @Value("${reports.top-categories:5}")
+    private int defaultTopCategories;
 
     @Autowired
-    private OrderDetailRepository orderDetailRepository;
+    private DailySalesRollupRepository dailySalesRollupRepository;
 
     @Autowired
     private UserRepository userRepository;
@@ -33,109 +36,76 @@ public class ReportService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    /**
+     * Report over the days startDate..endDate, read from daily_sales_rollup: a few rows per day whatever
+     * the number of orders. Figures trail the orders by at most one rollup flush interval.
+     */
     public ReportDTO generateReport(LocalDate startDate, LocalDate endDate) {
+        return generateReport(startDate, endDate, defaultTopCategories);
+    }
+
+    /**
+     * @param topN how many categories to list, clamped to 1..{@link Constants#MAX_PAGE_SIZE}
+     */
+    public ReportDTO generateReport(LocalDate startDate, LocalDate endDate, int topN) {
+        long started = System.currentTimeMillis();
+        topN = Math.max(1, Math.min(topN, Constants.MAX_PAGE_SIZE));
         ReportDTO report = new ReportDTO();
 
-        // Convert LocalDate to LocalDateTime for comparison
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        // Initialize all dates with 0
+        Map<LocalDate, BigDecimal> dailyRevenue = new TreeMap<>();
+        Map<LocalDate, Integer> dailyOrders = new TreeMap<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            dailyRevenue.put(date, BigDecimal.ZERO);
+            dailyOrders.put(date, 0);
+        }
 
-        // Get all orders in date range
-        List<Order> orders = orderRepository.findAll().stream()
-                .filter(o -> !o.getOrderDate().isBefore(startDateTime) && !o.getOrderDate().isAfter(endDateTime))
-                .collect(Collectors.toList());
+        int totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        Map<String, Integer> ordersByStatus = new HashMap<>();
+        for (Object[] row : dailySalesRollupRepository.findOrderTotals(startDate, endDate)) {
+            LocalDate day = (LocalDate) row[0];
+            String status = (String) row[1];
+            int count = ((Number) row[2]).intValue();
+            BigDecimal revenue = row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO;
+
+            totalOrders += count;
+            totalRevenue = totalRevenue.add(revenue);
+            ordersByStatus.merge(status, count, Integer::sum);
+            dailyRevenue.computeIfPresent(day, (d, sum) -> sum.add(revenue));
+            dailyOrders.computeIfPresent(day, (d, sum) -> sum + count);
+        }
 
         // Calculate totals
-        report.setTotalOrders(orders.size());
-        report.setTotalRevenue(orders.stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        report.setTotalOrders(totalOrders);
+        report.setTotalRevenue(totalRevenue);
 
         report.setTotalUsers((int) userRepository.count());
         report.setTotalBooks((int) bookRepository.count());
 
         // Order status breakdown
-        report.setCompletedOrders((int) orders.stream().filter(o -> "completed".equals(o.getStatus())).count());
-        report.setPendingOrders((int) orders.stream().filter(o -> "pending".equals(o.getStatus())).count());
-        report.setShippedOrders((int) orders.stream().filter(o -> "shipped".equals(o.getStatus())).count());
-
-        // Daily revenue
-        report.setDailyRevenue(calculateDailyRevenue(orders, startDate, endDate));
-
-        // Daily orders
-        report.setDailyOrders(calculateDailyOrders(orders, startDate, endDate));
-
-        // Top categories
-        report.setTopCategories(calculateTopCategories(orders));
-
-        return report;
-    }
-
-    private List<DailyRevenueDTO> calculateDailyRevenue(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        Map<LocalDate, BigDecimal> dailyMap = new TreeMap<>();
-
-        // Initialize all dates with 0
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            dailyMap.put(date, BigDecimal.ZERO);
-        }
-
-        // Aggregate revenue by date
-        for (Order order : orders) {
-            LocalDate orderDate = order.getOrderDate().toLocalDate();
-            if (!orderDate.isBefore(startDate) && !orderDate.isAfter(endDate)) {
-                dailyMap.put(orderDate, dailyMap.get(orderDate).add(order.getTotalAmount()));
-            }
-        }
+        report.setCompletedOrders(ordersByStatus.getOrDefault("completed", 0));
+        report.setPendingOrders(ordersByStatus.getOrDefault("pending", 0));
+        report.setShippedOrders(ordersByStatus.getOrDefault("shipped", 0));
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        return dailyMap.entrySet().stream()
+        report.setDailyRevenue(dailyRevenue.entrySet().stream()
                 .map(e -> new DailyRevenueDTO(e.getKey().format(formatter), e.getValue()))
-                .collect(Collectors.toList());
-    }
-
-    private List<DailyOrderDTO> calculateDailyOrders(List<Order> orders, LocalDate startDate, LocalDate endDate) {
-        Map<LocalDate, Integer> dailyMap = new TreeMap<>();
-
-        // Initialize all dates with 0
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            dailyMap.put(date, 0);
-        }
+                .collect(Collectors.toList()));
+        report.setDailyOrders(dailyOrders.entrySet().stream()
+                .map(e -> new DailyOrderDTO(e.getKey().format(formatter), e.getValue()))
+                .collect(Collectors.toList()));
 
-        // Count orders by date
-        for (Order order : orders) {
-            LocalDate orderDate = order.getOrderDate().toLocalDate();
-            if (!orderDate.isBefore(startDate) && !orderDate.isAfter(endDate)) {
-                dailyMap.put(orderDate, dailyMap.get(orderDate) + 1);
-            }
-        }
+        // Top categories
+        report.setTopCategories(calculateTopCategories(startDate, endDate, topN));
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        return dailyMap.entrySet().stream()
-                .map(e -> new DailyOrderDTO(e.getKey().format(formatter), e.getValue()))
-                .collect(Collectors.toList());
+        logger.info("Report " + startDate + ".." + endDate + " built in " + (System.currentTimeMillis() - started) + " ms");
+        return report;
     }
 
-    private List<CategorySalesDTO> calculateTopCategories(List<Order> orders) {
-        Map<String, Integer> categoryMap = new HashMap<>();
-
-        for (Order order : orders) {
-            List<OrderDetail> details = orderDetailRepository.findAll().stream()
-                    .filter(od -> od.getOrderId().equals(order.getOrderId()))
-                    .collect(Collectors.toList());
-
-            for (OrderDetail detail : details) {
-                var book = bookRepository.findById(detail.getBookId()).orElse(null);
-                if (book != null && book.getCategory() != null) {
-                    String categoryName = book.getCategory().getName();
-                    categoryMap.put(categoryName, categoryMap.getOrDefault(categoryName, 0) + detail.getQuantity());
-                }
-            }
-        }
-
-        return categoryMap.entrySet().stream()
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .limit(5)
-                .map(e -> new CategorySalesDTO(e.getKey(), e.getValue()))
+    private List<CategorySalesDTO> calculateTopCategories(LocalDate start, LocalDate end, int topN) {
+        return dailySalesRollupRepository.sumUnitsByCategory(start, end, PageRequest.of(0, topN)).stream()
+                .map(row -> new CategorySalesDTO((String) row[0], ((Number) row[1]).intValue()))
                 .collect(Collectors.toList());
     }
 }
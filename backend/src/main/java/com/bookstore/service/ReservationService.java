@@ -0,0 +1,79 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Order;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Tracks when the stock held by unpaid online orders runs out. The deadline itself is stored on the order
+ * (orders.reserved_until); this class only keeps the in-memory timing wheel that says which orders are due,
+ * so expiring a reservation never has to scan the orders table. The wheel is rebuilt from the table at startup.
+ */
+@Service
+public class ReservationService {
+    private static final Logger logger = Logger.getLogger(ReservationService.class.getName());
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${orders.reservation.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Value("${orders.reservation.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${orders.reservation.wheel-slots:1024}")
+    private int wheelSlots;
+
+    private TimingWheel<Integer> wheel;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMillis, wheelSlots);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        List<Order> held = orderRepository.findByReservedUntilIsNotNull();
+        for (Order order : held) {
+            track(order.getOrderId(), order.getReservedUntil());
+        }
+        logger.info("Reservations: tracking " + held.size() + " unpaid orders");
+    }
+
+    /**
+     * Deadline for a reservation made now.
+     */
+    public LocalDateTime newDeadline() {
+        return LocalDateTime.now().plusMinutes(ttlMinutes);
+    }
+
+    public void track(Integer orderId, LocalDateTime reservedUntil) {
+        wheel.schedule(orderId, reservedUntil.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public void release(Integer orderId) {
+        wheel.cancel(orderId);
+    }
+
+    /**
+     * Remove and return the orders whose reservation has run out since the last call.
+     */
+    public List<Integer> pollExpired() {
+        return wheel.advance();
+    }
+
+    public int size() {
+        return wheel.size();
+    }
+}
@@ -0,0 +1,145 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Review;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Review writes and the rating summary columns they maintain on books (count, total, 1..5 star histogram).
+ * Each write adjusts the summary with an atomic UPDATE in the same transaction as the review row,
+ * so concurrent reviews never lose counts and catalog reads never touch the reviews table.
+ */
+@Service
+public class ReviewService {
+    private static final Logger logger = Logger.getLogger(ReviewService.class.getName());
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Value("${reviews.rating-summary.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    public static boolean isValidRating(Integer rating) {
+        return rating != null && rating >= MIN_RATING && rating <= MAX_RATING;
+    }
+
+    @Transactional
+    public Review createReview(Review review) {
+        Review saved = reviewRepository.save(review);
+        adjust(bookIdOf(saved), saved.getRating(), 1);
+        return saved;
+    }
+
+    /**
+     * Apply a partial update; null fields are left unchanged. The review is re-read under a row lock,
+     * so a concurrent edit or delete cannot make this one adjust the summary from a stale rating.
+     * @return the updated review, or empty when it no longer exists
+     */
+    @Transactional
+    public Optional<Review> updateReview(Integer reviewId, Integer rating, String comment) {
+        Optional<Review> existing = reviewRepository.findByIdForUpdate(reviewId);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Review review = existing.get();
+        Integer oldRating = review.getRating();
+        if (rating != null) {
+            review.setRating(rating);
+        }
+        if (comment != null) {
+            review.setComment(comment);
+        }
+        Review saved = reviewRepository.save(review);
+        Integer bookId = bookIdOf(saved);
+        if (bookId != null && rating != null && !rating.equals(oldRating)) {
+            if (oldRating == null) {
+                adjust(bookId, rating, 1);
+            } else if (bookRepository.moveRating(bookId, oldRating, rating) > 0) {
+                catalogCache.evictBookAfterCommit(bookId);
+            } else {
+                logger.warning("Rating summary of book " + bookId + " has no " + oldRating + "-star review to move; run a recompute");
+            }
+        }
+        return Optional.of(saved);
+    }
+
+    /**
+     * @return false when the review no longer exists, e.g. a repeated DELETE; the summary is then left alone
+     */
+    @Transactional
+    public boolean deleteReview(Integer reviewId) {
+        Optional<Review> existing = reviewRepository.findByIdForUpdate(reviewId);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        Review review = existing.get();
+        reviewRepository.delete(review);
+        adjust(bookIdOf(review), review.getRating(), -1);
+        return true;
+    }
+
+    /**
+     * Recompute every book's summary from the reviews table, e.g. after reviews were imported directly.
+     * @return number of book rows updated
+     */
+    @Transactional
+    public int recomputeRatingSummaries() {
+        long start = System.currentTimeMillis();
+        int updated = bookRepository.recomputeRatingSummaries();
+        catalogCache.clear();
+        logger.info("Recomputed rating summaries for " + updated + " books in " + (System.currentTimeMillis() - start) + " ms");
+        return updated;
+    }
+
+    /**
+     * Called once before the catalog indexes are built, since autocomplete ranks books by rating count.
+     */
+    @Transactional
+    public void initRatingSummaries() {
+        if (rebuildOnStartup) {
+            recomputeRatingSummaries();
+        }
+    }
+
+    private void adjust(Integer bookId, Integer rating, int delta) {
+        if (bookId == null || rating == null) {
+            return;
+        }
+        bookRepository.adjustRating(bookId, rating, delta);
+        catalogCache.evictBookAfterCommit(bookId);
+        // Autocomplete ranks books by review count
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bookSuggestIndex.adjustPopularity(bookId, delta);
+                }
+            });
+        } else {
+            bookSuggestIndex.adjustPopularity(bookId, delta);
+        }
+    }
+
+    private static Integer bookIdOf(Review review) {
+        return review.getBook() == null ? null : review.getBook().getBookId();
+    }
+}
@@ -0,0 +1,393 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ValidationException;
+import com.bookstore.model.Author;
+import com.bookstore.model.Category;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.AuthorRepository;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CategoryRepository;
+import com.bookstore.util.Constants;
+import com.bookstore.util.SalesFactTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+/**
+ * Ad-hoc sales analytics over an in-memory {@link SalesFactTable} of every order line. The table is loaded
+ * from the database in the background after startup, then follows the orders through OrderService: changes
+ * are queued once their transaction commits and applied by {@link #tail()}. Prices are kept in minor units
+ * (amount × 100). Memory use is roughly 45 bytes per order line.
+ */
+@Service
+public class SalesAnalyticsService {
+    private static final Logger logger = Logger.getLogger(SalesAnalyticsService.class.getName());
+    // Status given to the rows of a deleted order, which no default query includes
+    private static final String STATUS_DELETED = "deleted";
+    private static final String LOAD_SQL =
+            "SELECT d.order_id, o.order_date, o.status, d.book_id, b.category_id, b.author_id, d.quantity, d.unit_price " +
+            "FROM order_details d JOIN orders o ON o.order_id = d.order_id LEFT JOIN books b ON b.book_id = d.book_id " +
+            "ORDER BY d.order_id, d.detail_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Value("${analytics.sales-facts.enabled:true}")
+    private boolean enabled;
+
+    private final SalesFactTable table = new SalesFactTable();
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private volatile boolean loaded;
+    // Set when the initial load fails; nothing would ever drain the queue then, so changes stop being queued
+    private volatile boolean loadFailed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Thread loader = new Thread(this::load, "sales-facts-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Follow one order change; same convention as the other order aggregates, a null status meaning the
+     * order does not exist on that side. A new order's lines must be given.
+     */
+    public void recordChange(Order order, List<OrderDetail> lines, String oldStatus, String newStatus) {
+        if (!enabled || loadFailed || order.getOrderId() == null) {
+            return;
+        }
+        Change change;
+        if (oldStatus == null) {
+            if (lines == null || lines.isEmpty() || order.getOrderDate() == null) {
+                return;
+            }
+            change = new Change(order.getOrderId(), newStatus, (int) order.getOrderDate().toLocalDate().toEpochDay(), new ArrayList<>(lines));
+        } else if (newStatus == null) {
+            change = new Change(order.getOrderId(), STATUS_DELETED, 0, null);
+        } else if (!oldStatus.equalsIgnoreCase(newStatus)) {
+            change = new Change(order.getOrderId(), newStatus, 0, null);
+        } else {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changes.add(change);
+                }
+            });
+        } else {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * Apply the queued order changes. Waits for the initial load, so nothing committed during it is lost;
+     * an order the load already picked up is not added twice.
+     */
+    @Scheduled(fixedDelayString = "${analytics.sales-facts.tail-interval-ms:1000}")
+    public void tail() {
+        if (!loaded || changes.isEmpty()) {
+            return;
+        }
+        List<Change> batch = new ArrayList<>();
+        for (Change change = changes.poll(); change != null; change = changes.poll()) {
+            batch.add(change);
+        }
+        Set<Integer> bookIds = new HashSet<>();
+        for (Change change : batch) {
+            if (change.lines != null) {
+                for (OrderDetail line : change.lines) {
+                    bookIds.add(line.getBookId());
+                }
+            }
+        }
+        Map<Integer, int[]> books = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            for (Object[] row : bookRepository.findCategoryAndAuthorIds(bookIds)) {
+                books.put((Integer) row[0], new int[] {row[1] != null ? (Integer) row[1] : 0, row[2] != null ? (Integer) row[2] : 0});
+            }
+        }
+        for (Change change : batch) {
+            if (change.lines != null) {
+                append(change, books);
+            } else {
+                table.setStatus(change.orderId, change.status);
+            }
+        }
+    }
+
+    /**
+     * Filter the sales and aggregate them by one dimension.
+     * @param from first day, or the earliest sale when null
+     * @param to last day, or the latest sale when null
+     * @param statuses statuses to include; null means every status except cancelled (and deleted orders)
+     * @param minPrice lowest unit price to include, inclusive
+     * @param maxPrice highest unit price to include, exclusive
+     * @param bandWidth width of the price bands when grouping by price band
+     */
+    public Map<String, Object> query(LocalDate from, LocalDate to, List<Integer> categoryIds, List<Integer> authorIds,
+                                     List<String> statuses, BigDecimal minPrice, BigDecimal maxPrice,
+                                     String groupBy, BigDecimal bandWidth) {
+        if (!enabled) {
+            throw new ValidationException("Sales analytics is disabled");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("loaded", loaded);
+        int[] range = table.dayRange();
+        if (range == null) {
+            response.put("groups", List.of());
+            response.put("scannedRows", 0);
+            response.put("matchedRows", 0);
+            return response;
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ValidationException("from must not be after to");
+        }
+        int dayFrom = from != null ? (int) from.toEpochDay() : range[0];
+        int dayTo = to != null ? (int) to.toEpochDay() : range[1];
+        SalesFactTable.Query query = new SalesFactTable.Query(dayFrom, dayTo);
+        query.setCategoryIds(toArray(categoryIds));
+        query.setAuthorIds(toArray(authorIds));
+        if (statuses != null && !statuses.isEmpty()) {
+            query.setStatuses(statuses);
+            query.setExcludedStatuses(List.of(STATUS_DELETED));
+        } else {
+            query.setExcludedStatuses(List.of(Constants.ORDER_STATUS_CANCELLED, STATUS_DELETED));
+        }
+        if (minPrice != null) {
+            query.setMinUnitPrice(toMinor(minPrice));
+        }
+        if (maxPrice != null) {
+            query.setMaxUnitPrice(toMinor(maxPrice));
+        }
+        SalesFactTable.GroupBy dimension = parseGroupBy(groupBy);
+        query.setGroupBy(dimension);
+        if (bandWidth != null) {
+            query.setBandWidth(toMinor(bandWidth));
+        }
+
+        long started = System.nanoTime();
+        SalesFactTable.Result result;
+        try {
+            result = table.query(query, ForkJoinPool.commonPool());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(e.getMessage());
+        }
+        long tookMicros = (System.nanoTime() - started) / 1000;
+
+        Map<String, String> labels = labels(dimension, result);
+        List<Map<String, Object>> groups = new ArrayList<>(result.getGroups().size());
+        for (SalesFactTable.Group group : result.getGroups()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("key", dimension == SalesFactTable.GroupBy.PRICE_BAND ? fromMinor(Long.parseLong(group.getKey())) : group.getKey());
+            if (labels != null) {
+                entry.put("label", labels.get(group.getKey()));
+            }
+            entry.put("units", group.getUnits());
+            entry.put("revenue", fromMinor(group.getRevenue()));
+            entry.put("lines", group.getLines());
+            groups.add(entry);
+        }
+        response.put("groupBy", dimension.name().toLowerCase(Locale.ROOT));
+        response.put("from", LocalDate.ofEpochDay(dayFrom));
+        response.put("to", LocalDate.ofEpochDay(dayTo));
+        response.put("scannedRows", result.getScannedRows());
+        response.put("matchedRows", result.getMatchedRows());
+        response.put("tookMicros", tookMicros);
+        response.put("groups", groups);
+        return response;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("loadFailed", loadFailed);
+        stats.put("rows", table.size());
+        stats.put("estimatedBytes", table.estimatedBytes());
+        stats.put("pendingChanges", changes.size());
+        return stats;
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        try {
+            // Stream the rows instead of buffering the whole result set (MySQL Connector/J convention)
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(Integer.MIN_VALUE);
+            OrderLoader loader = new OrderLoader();
+            streaming.query(LOAD_SQL, rs -> {
+                loader.add(rs.getInt(1), rs.getTimestamp(2), rs.getString(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+                        rs.getInt(7), rs.getBigDecimal(8));
+            });
+            loader.flush();
+            loaded = true;
+            logger.info("Sales facts: loaded " + table.size() + " order lines in " + (System.currentTimeMillis() - started) + " ms");
+        } catch (RuntimeException e) {
+            loadFailed = true;
+            changes.clear();
+            logger.severe("Sales facts: initial load failed, analytics stays unavailable: " + e.getMessage());
+        }
+    }
+
+    private void append(Change change, Map<Integer, int[]> books) {
+        int lines = change.lines.size();
+        int[] bookIds = new int[lines];
+        int[] categoryIds = new int[lines];
+        int[] authorIds = new int[lines];
+        int[] quantities = new int[lines];
+        long[] unitPrices = new long[lines];
+        for (int i = 0; i < lines; i++) {
+            OrderDetail line = change.lines.get(i);
+            int[] book = books.getOrDefault(line.getBookId(), new int[2]);
+            bookIds[i] = line.getBookId();
+            categoryIds[i] = book[0];
+            authorIds[i] = book[1];
+            quantities[i] = line.getQuantity() != null ? line.getQuantity() : 0;
+            unitPrices[i] = line.getUnitPrice() != null ? toMinor(line.getUnitPrice()) : 0;
+        }
+        table.appendOrder(change.orderId, change.day, change.status, bookIds, categoryIds, authorIds, quantities, unitPrices);
+    }
+
+    private Map<String, String> labels(SalesFactTable.GroupBy dimension, SalesFactTable.Result result) {
+        Map<String, String> labels = new HashMap<>();
+        if (dimension == SalesFactTable.GroupBy.CATEGORY) {
+            for (Category category : categoryRepository.findAll()) {
+                labels.put(String.valueOf(category.getCategoryId()), category.getName());
+            }
+        } else if (dimension == SalesFactTable.GroupBy.AUTHOR) {
+            List<Integer> ids = new ArrayList<>();
+            for (SalesFactTable.Group group : result.getGroups()) {
+                ids.add(Integer.valueOf(group.getKey()));
+            }
+            for (Author author : authorRepository.findAllById(ids)) {
+                labels.put(String.valueOf(author.getAuthorId()), author.getName());
+            }
+        } else {
+            return null;
+        }
+        return labels;
+    }
+
+    private static SalesFactTable.GroupBy parseGroupBy(String groupBy) {
+        if (groupBy == null || groupBy.isBlank()) {
+            return SalesFactTable.GroupBy.NONE;
+        }
+        try {
+            return SalesFactTable.GroupBy.valueOf(groupBy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown groupBy: " + groupBy);
+        }
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    /**
+     * Collects the streamed rows of one order at a time and appends them together.
+     */
+    private final class OrderLoader {
+        private int orderId;
+        private int day;
+        private String status;
+        private final List<int[]> ids = new ArrayList<>();
+        private final List<Long> prices = new ArrayList<>();
+
+        void add(int lineOrderId, Timestamp orderDate, String lineStatus, int bookId, int categoryId, int authorId,
+                 int quantity, BigDecimal unitPrice) {
+            if (lineOrderId != orderId) {
+                flush();
+                orderId = lineOrderId;
+                day = (int) orderDate.toLocalDateTime().toLocalDate().toEpochDay();
+                status = lineStatus;
+            }
+            ids.add(new int[] {bookId, categoryId, authorId, quantity});
+            prices.add(unitPrice != null ? toMinor(unitPrice) : 0L);
+        }
+
+        void flush() {
+            if (ids.isEmpty()) {
+                return;
+            }
+            int lines = ids.size();
+            int[] bookIds = new int[lines];
+            int[] categoryIds = new int[lines];
+            int[] authorIds = new int[lines];
+            int[] quantities = new int[lines];
+            long[] unitPrices = new long[lines];
+            for (int i = 0; i < lines; i++) {
+                int[] line = ids.get(i);
+                bookIds[i] = line[0];
+                categoryIds[i] = line[1];
+                authorIds[i] = line[2];
+                quantities[i] = line[3];
+                unitPrices[i] = prices.get(i);
+            }
+            table.appendOrder(orderId, day, status, bookIds, categoryIds, authorIds, quantities, unitPrices);
+            ids.clear();
+            prices.clear();
+        }
+    }
+
+    private static final class Change {
+        final int orderId;
+        final String status;
+        final int day;
+        // Set for a new order only
+        final List<OrderDetail> lines;
+
+        Change(int orderId, String status, int day, List<OrderDetail> lines) {
+            this.orderId = orderId;
+            this.status = status;
+            this.day = day;
+            this.lines = lines;
+        }
+    }
+}
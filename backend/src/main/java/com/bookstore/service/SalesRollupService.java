@@ -0,0 +1,233 @@
+package com.bookstore.service;
+
+import com.bookstore.model.DailySalesRollup;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.DailySalesRollupRepository;
+import com.bookstore.repository.OrderDetailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * Keeps daily_sales_rollup in step with the orders. OrderService reports each order change; the change's
+ * deltas are collected once its transaction commits and merged per (day, category, status), and
+ * {@link #flush()} writes them as one batch of upserts. Checkouts therefore never wait on the hot
+ * "today, pending" rows. Deltas not yet flushed are lost in a crash, which {@link #rebuild()} repairs;
+ * it runs at startup by default.
+ */
+@Service
+public class SalesRollupService {
+    private static final Logger logger = Logger.getLogger(SalesRollupService.class.getName());
+    // category_id of the rows that hold whole-order totals
+    public static final int ALL_CATEGORIES = 0;
+    private static final String UPSERT_SQL =
+            "INSERT INTO daily_sales_rollup (day, category_id, status, order_count, units, revenue) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), units = units + VALUES(units), " +
+            "revenue = revenue + VALUES(revenue)";
+
+    @Autowired
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${reports.rollup.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    private final Map<DailySalesRollup.Key, Delta> pending = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void init() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Record an order moving from (oldStatus, oldTotal) to (newStatus, newTotal). A null status means the order
+     * does not exist on that side (just created or deleted). Lines may be null; they are only read when the
+     * status changes, since a total change alone touches just the whole-order row.
+     */
+    public void recordChange(Order order, List<OrderDetail> lines, String oldStatus, BigDecimal oldTotal,
+                             String newStatus, BigDecimal newTotal) {
+        if (order.getOrderDate() == null) {
+            return;
+        }
+        LocalDate day = order.getOrderDate().toLocalDate();
+        String from = normalize(oldStatus);
+        String to = normalize(newStatus);
+        Map<DailySalesRollup.Key, Delta> deltas = new HashMap<>();
+        if (Objects.equals(from, to)) {
+            BigDecimal change = amount(newTotal).subtract(amount(oldTotal));
+            if (to == null || change.signum() == 0) {
+                return;
+            }
+            add(deltas, new DailySalesRollup.Key(day, ALL_CATEGORIES, to), 0, 0, change);
+        } else {
+            if (lines == null) {
+                lines = orderDetailRepository.findByOrderId(order.getOrderId());
+            }
+            if (from != null) {
+                addOrder(deltas, day, from, lines, oldTotal, -1);
+            }
+            if (to != null) {
+                addOrder(deltas, day, to, lines, newTotal, 1);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    merge(deltas);
+                }
+            });
+        } else {
+            merge(deltas);
+        }
+    }
+
+    /**
+     * Write the merged deltas. A failed write keeps them for the next run.
+     */
+    @Scheduled(fixedDelayString = "${reports.rollup.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<DailySalesRollup.Key, Delta> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(pending);
+            pending.clear();
+        }
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Map.Entry<DailySalesRollup.Key, Delta> entry : batch.entrySet()) {
+            DailySalesRollup.Key key = entry.getKey();
+            Delta delta = entry.getValue();
+            args.add(new Object[] {Date.valueOf(key.getDay()), key.getCategoryId(), key.getStatus(),
+                    delta.orders, delta.units, delta.revenue});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+        } catch (RuntimeException e) {
+            logger.warning("Sales rollup flush failed, will retry: " + e.getMessage());
+            merge(batch);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * Recompute the whole rollup from orders and order lines. Order changes that commit while it runs
+     * may be counted twice, so run it when the shop is quiet (or at startup).
+     * @return number of rollup rows
+     */
+    @Transactional
+    public synchronized int rebuild() {
+        synchronized (pending) {
+            // Everything committed so far is in the tables the rebuild reads
+            pending.clear();
+        }
+        long started = System.currentTimeMillis();
+        dailySalesRollupRepository.deleteAllRows();
+        int rows = dailySalesRollupRepository.insertOrderTotals() + dailySalesRollupRepository.insertCategoryTotals();
+        logger.info("Sales rollup rebuilt: " + rows + " rows in " + (System.currentTimeMillis() - started) + " ms");
+        return rows;
+    }
+
+    private void addOrder(Map<DailySalesRollup.Key, Delta> deltas, LocalDate day, String status,
+                          List<OrderDetail> lines, BigDecimal total, int sign) {
+        Map<Integer, Integer> categories = categoriesOf(lines);
+        long units = 0;
+        Map<Integer, Delta> byCategory = new HashMap<>();
+        for (OrderDetail line : lines) {
+            int quantity = line.getQuantity() != null ? line.getQuantity() : 0;
+            units += quantity;
+            Integer categoryId = categories.get(line.getBookId());
+            if (categoryId != null) {
+                Delta delta = byCategory.computeIfAbsent(categoryId, id -> new Delta());
+                delta.units += quantity;
+                delta.revenue = delta.revenue.add(amount(line.getUnitPrice()).multiply(BigDecimal.valueOf(quantity)));
+            }
+        }
+        add(deltas, new DailySalesRollup.Key(day, ALL_CATEGORIES, status), sign, sign * units, amount(total).multiply(BigDecimal.valueOf(sign)));
+        for (Map.Entry<Integer, Delta> entry : byCategory.entrySet()) {
+            Delta delta = entry.getValue();
+            add(deltas, new DailySalesRollup.Key(day, entry.getKey(), status), sign, sign * delta.units,
+                    delta.revenue.multiply(BigDecimal.valueOf(sign)));
+        }
+    }
+
+    private Map<Integer, Integer> categoriesOf(List<OrderDetail> lines) {
+        List<Integer> bookIds = new ArrayList<>(lines.size());
+        for (OrderDetail line : lines) {
+            bookIds.add(line.getBookId());
+        }
+        Map<Integer, Integer> categories = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            for (Object[] row : bookRepository.findCategoryIds(bookIds)) {
+                categories.put((Integer) row[0], (Integer) row[1]);
+            }
+        }
+        return categories;
+    }
+
+    private void merge(Map<DailySalesRollup.Key, Delta> deltas) {
+        synchronized (pending) {
+            for (Map.Entry<DailySalesRollup.Key, Delta> entry : deltas.entrySet()) {
+                Delta delta = entry.getValue();
+                add(pending, entry.getKey(), delta.orders, delta.units, delta.revenue);
+            }
+        }
+    }
+
+    private static void add(Map<DailySalesRollup.Key, Delta> deltas, DailySalesRollup.Key key, long orders, long units, BigDecimal revenue) {
+        Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+        delta.orders += orders;
+        delta.units += units;
+        delta.revenue = delta.revenue.add(revenue);
+    }
+
+    private static String normalize(String status) {
+        return status != null ? status.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static BigDecimal amount(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static final class Delta {
+        long orders;
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+    }
+}
@@ -1,6 +1,9 @@
 package com.bookstore.service;
 
+import com.bookstore.dto.CursorPage;
+import com.bookstore.model.Order;
 import com.bookstore.model.User;
+import com.bookstore.model.UserOrderSummary;
 import com.bookstore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,6 +19,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private OrderService orderService;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -69,8 +75,11 @@ public class UserService {
                 .toList();
     }
 
-    public List<com.bookstore.model.Order> getUserOrders(Integer userId) {
-        // This will be implemented when we have OrderRepository
-        return new java.util.ArrayList<>();
+    public CursorPage<Order> getUserOrders(Integer userId, String cursor, Integer size, boolean includeItems) {
+        return orderService.getOrdersByUserPage(userId, cursor, size, includeItems);
+    }
+
+    public UserOrderSummary getUserOrderSummary(Integer userId) {
+        return orderService.getUserSummary(userId);
     }
 }
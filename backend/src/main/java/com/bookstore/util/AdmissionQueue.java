@@ -0,0 +1,152 @@
+package com.bookstore.util;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Rate-based admission with a bounded FIFO waiting room. Admission credit accrues at a fixed rate and goes
+ * to queued tickets first, in ticket order; only once the queue is empty does it build up as burst capacity
+ * for requests that arrive without a ticket. When the queue is full, callers are turned away straight
+ * away with a retry hint instead of being left to time out.
+ * <p>
+ * An admitted ticket lets exactly one request in, and only within admittedTtlMillis of its admission.
+ * A replayed or expired ticket is treated like a request without one.
+ */
+public class AdmissionQueue {
+    public enum Outcome { ADMITTED, QUEUED, REJECTED }
+
+    private final double ratePerSecond;
+    private final int burst;
+    private final int maxQueue;
+    private final long admittedTtlMillis;
+    private final Supplier<Long> clock;
+
+    // Tickets below admittedUpTo may enter; tickets from admittedUpTo up to nextTicket are still waiting
+    private long nextTicket;
+    private long admittedUpTo;
+    private double credit;
+    private long lastRefill;
+    // Admitted ticket ranges [from, to) with their admission time, oldest first; older ones have expired
+    private final ArrayDeque<long[]> admissions = new ArrayDeque<>();
+    // Tickets from the live ranges that have already let a request in
+    private final Set<Long> redeemed = new HashSet<>();
+
+    public AdmissionQueue(double ratePerSecond, int burst, int maxQueue, long admittedTtlMillis) {
+        this(ratePerSecond, burst, maxQueue, admittedTtlMillis, System::currentTimeMillis);
+    }
+
+    public AdmissionQueue(double ratePerSecond, int burst, int maxQueue, long admittedTtlMillis, Supplier<Long> clock) {
+        if (ratePerSecond <= 0 || burst < 1 || maxQueue < 0 || admittedTtlMillis <= 0) {
+            throw new IllegalArgumentException("rate and admittedTtlMillis must be positive, burst at least 1 and maxQueue not negative");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxQueue = maxQueue;
+        this.admittedTtlMillis = admittedTtlMillis;
+        this.clock = clock;
+        this.credit = burst;
+        this.lastRefill = clock.get();
+    }
+
+    /**
+     * Decide on a request that holds no ticket: admit it, give it a place in the queue, or reject it.
+     */
+    public synchronized Decision arrive() {
+        refill();
+        long waiting = nextTicket - admittedUpTo;
+        if (waiting == 0 && credit >= 1) {
+            credit -= 1;
+            return new Decision(Outcome.ADMITTED, -1, 0, 0);
+        }
+        if (waiting >= maxQueue) {
+            return new Decision(Outcome.REJECTED, -1, 0, secondsFor(waiting));
+        }
+        long ticket = nextTicket++;
+        return waiting(ticket);
+    }
+
+    /**
+     * Decide on a request that comes back with a ticket from an earlier arrive().
+     * An admitted ticket is used up by the ADMITTED decision it gets here.
+     */
+    public synchronized Decision check(long ticket) {
+        refill();
+        if (ticket < 0 || ticket >= nextTicket) {
+            return arrive();
+        }
+        if (ticket < admittedUpTo) {
+            if (admissions.isEmpty() || ticket < admissions.peekFirst()[0] || !redeemed.add(ticket)) {
+                // Expired or already used
+                return arrive();
+            }
+            return new Decision(Outcome.ADMITTED, ticket, 0, 0);
+        }
+        return waiting(ticket);
+    }
+
+    /**
+     * Make an admitted ticket usable again, e.g. when its request was turned away before doing any work.
+     */
+    public synchronized void giveBack(long ticket) {
+        redeemed.remove(ticket);
+    }
+
+    public synchronized long queueLength() {
+        refill();
+        return nextTicket - admittedUpTo;
+    }
+
+    private Decision waiting(long ticket) {
+        long position = ticket - admittedUpTo + 1;
+        return new Decision(Outcome.QUEUED, ticket, position, secondsFor(position));
+    }
+
+    private void refill() {
+        long now = clock.get();
+        if (now > lastRefill) {
+            credit += (now - lastRefill) * ratePerSecond / 1000.0;
+            lastRefill = now;
+        }
+        long waiting = nextTicket - admittedUpTo;
+        long admit = Math.min(waiting, (long) credit);
+        if (admit > 0) {
+            admissions.addLast(new long[] {admittedUpTo, admittedUpTo + admit, now});
+        }
+        admittedUpTo += admit;
+        credit -= admit;
+        while (!admissions.isEmpty() && now - admissions.peekFirst()[2] > admittedTtlMillis) {
+            long[] expired = admissions.pollFirst();
+            for (long ticket = expired[0]; ticket < expired[1]; ticket++) {
+                redeemed.remove(ticket);
+            }
+        }
+        if (admittedUpTo == nextTicket) {
+            credit = Math.min(credit, burst);
+        }
+    }
+
+    private long secondsFor(long position) {
+        return Math.max(1, (long) Math.ceil(position / ratePerSecond));
+    }
+
+    public static final class Decision {
+        private final Outcome outcome;
+        private final long ticket;
+        private final long position;
+        private final long retryAfterSeconds;
+
+        Decision(Outcome outcome, long ticket, long position, long retryAfterSeconds) {
+            this.outcome = outcome;
+            this.ticket = ticket;
+            this.position = position;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public long getTicket() { return ticket; }
+        public long getPosition() { return position; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+}
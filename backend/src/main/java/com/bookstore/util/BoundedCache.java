@@ -0,0 +1,199 @@
+package com.bookstore.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Size- and time-bounded in-process cache with LRU eviction and hit/miss/eviction counters.
+ * Loads run outside the lock; a load that overlaps an invalidation of its key is returned to its
+ * caller but not stored, so a write can never be hidden behind a value read just before it.
+ * Invalidations are tracked per stripe of keys, so invalidating one key does not keep every other
+ * in-flight load from being cached; invalidateIf and clear still count against all keys.
+ */
+public class BoundedCache<K, V> {
+    private static final int STRIPES = 256;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Supplier<Long> clock;
+    private final LinkedHashMap<K, Timed<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long[] stripeInvalidations = new long[STRIPES];
+    private long globalInvalidations;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public BoundedCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    public BoundedCache(String name, int maxSize, long ttlMillis, Supplier<Long> clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Cached value for the key, or null if absent or expired. Counts a hit or a miss.
+     */
+    public V get(K key) {
+        synchronized (this) {
+            Timed<V> timed = entries.get(key);
+            if (timed != null) {
+                if (!isExpired(timed)) {
+                    hits.incrementAndGet();
+                    return timed.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Read-through lookup; null results are not cached.
+     */
+    public V getOrLoad(K key, Function<K, V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(key);
+        long global;
+        long generation;
+        synchronized (this) {
+            global = globalInvalidations;
+            generation = stripeInvalidations[stripe];
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (global == globalInvalidations && generation == stripeInvalidations[stripe]) {
+                    store(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        store(key, value);
+    }
+
+    /**
+     * Store the value unless a live entry exists.
+     * @return the existing value, or null if the given one was stored
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        Timed<V> timed = entries.get(key);
+        if (timed != null && !isExpired(timed)) {
+            return timed.value;
+        }
+        store(key, value);
+        return null;
+    }
+
+    /**
+     * Remove the entry only if it still holds this exact value, so a caller cannot drop a newer entry.
+     */
+    public synchronized boolean remove(K key, V value) {
+        Timed<V> timed = entries.get(key);
+        if (timed == null || timed.value != value) {
+            return false;
+        }
+        entries.remove(key);
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        stripeInvalidations[stripe(key)]++;
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every entry whose value matches, e.g. all books that reference a renamed category.
+     * @return number of entries removed
+     */
+    public synchronized int invalidateIf(Predicate<V> predicate) {
+        globalInvalidations++;
+        int removed = 0;
+        Iterator<Timed<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (predicate.test(it.next().value)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        globalInvalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Timed<>(value, clock.get() + ttlMillis));
+        Iterator<Timed<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int stripe(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private boolean isExpired(Timed<V> timed) {
+        return clock.get() >= timed.expiresAt;
+    }
+
+    private static class Timed<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Timed(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.bookstore.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV support for streaming catalog import and export.
+ * Fields may be quoted; quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public class CsvUtil {
+
+    private CsvUtil() {}
+
+    /**
+     * Reads one record at a time from a character stream, so arbitrarily large files use constant memory.
+     */
+    public static class RecordReader {
+        private final Reader in;
+        private int pushedBack = -2;
+        private long line = 1;
+        private long recordLine = 1;
+
+        public RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Line on which the last returned record started (1-based).
+         */
+        public long getRecordLine() {
+            return recordLine;
+        }
+
+        /**
+         * @return the fields of the next record, or null at end of input
+         */
+        public List<String> next() throws IOException {
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                c = read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean fieldStart = true;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStart = true;
+                    c = read();
+                    continue;
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pushBack(next);
+                        }
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                fieldStart = false;
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (pushedBack != -2) {
+                c = pushedBack;
+                pushedBack = -2;
+            } else {
+                c = in.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private void pushBack(int c) {
+            if (c == '\n') {
+                line--;
+            }
+            pushedBack = c;
+        }
+    }
+
+    /**
+     * Quote a value only when it contains a delimiter, quote or line break.
+     */
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    public static void writeRecord(Appendable out, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(escape(values[i]));
+        }
+        out.append('\n');
+    }
+}
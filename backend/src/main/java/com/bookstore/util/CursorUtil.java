@@ -0,0 +1,65 @@
+package com.bookstore.util;
+
+import com.bookstore.exception.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor tokens for keyset pagination.
+ * A cursor is the sort key of the last row of a page, joined with '|' and Base64url encoded,
+ * so clients can pass it back without depending on its contents.
+ */
+public class CursorUtil {
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {}
+
+    public static String encode(Object... keyParts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keyParts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keyParts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != expectedParts) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Decode a single-integer cursor; a missing cursor means "start from the beginning".
+     */
+    public static int decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Clamp a requested page size to [1, MAX_PAGE_SIZE], defaulting to DEFAULT_PAGE_SIZE.
+     */
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return Constants.DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, Constants.MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,229 @@
+package com.bookstore.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe in-memory inverted index with BM25 ranking.
+ * Keeps a forward map (doc -> term frequencies) next to the postings so documents
+ * can be replaced or removed without rescanning, and so the index can be written to disk.
+ */
+public class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Integer, Integer> docLengths = new HashMap<>();
+    private long totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add a document, replacing any previous version with the same id.
+     */
+    public void put(int docId, Map<String, Integer> termFreqs) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            Map<String, Integer> terms = new HashMap<>(termFreqs);
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(docId, entry.getValue());
+                length += entry.getValue();
+            }
+            documents.put(docId, terms);
+            docLengths.put(docId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeInternal(int docId) {
+        Map<String, Integer> terms = documents.remove(docId);
+        if (terms == null) {
+            return false;
+        }
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(docId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        Integer length = docLengths.remove(docId);
+        if (length != null) {
+            totalLength -= length;
+        }
+        return true;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            docLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int docFreq(String term) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> docs = postings.get(term);
+            return docs == null ? 0 : docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> terms() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(postings.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Score every document containing at least one query term and return the best {@code limit} hits.
+     * @param queryTerms term -> query weight (1.0 for an exact term, lower for expansions)
+     * @param limit maximum number of hits to return, best first
+     */
+    public Result search(Map<String, Double> queryTerms, int limit) {
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0 || queryTerms.isEmpty() || limit <= 0) {
+                return new Result(Collections.emptyList(), 0);
+            }
+            double avgLength = (double) totalLength / docCount;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Double> query : queryTerms.entrySet()) {
+                Map<Integer, Integer> docs = postings.get(query.getKey());
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<Integer, Integer> posting : docs.entrySet()) {
+                    int tf = posting.getValue();
+                    int length = docLengths.getOrDefault(posting.getKey(), 0);
+                    double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                    scores.merge(posting.getKey(), query.getValue() * idf * norm, Double::sum);
+                }
+            }
+            return new Result(topHits(scores, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Hit> topHits(Map<Integer, Double> scores, int limit) {
+        Comparator<Hit> byRank = Comparator.comparingDouble(Hit::getScore).reversed()
+                .thenComparingInt(Hit::getDocId);
+        // Min-heap on rank keeps only the best `limit` hits instead of sorting every match
+        PriorityQueue<Hit> heap = new PriorityQueue<>(byRank.reversed());
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            heap.offer(new Hit(entry.getKey(), entry.getValue()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(byRank);
+        return hits;
+    }
+
+    /**
+     * Serialize the forward index; postings are rebuilt from it on load.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(documents.size());
+            for (Map.Entry<Integer, Map<String, Integer>> doc : documents.entrySet()) {
+                out.writeInt(doc.getKey());
+                out.writeInt(doc.getValue().size());
+                for (Map.Entry<String, Integer> term : doc.getValue().entrySet()) {
+                    out.writeUTF(term.getKey());
+                    out.writeInt(term.getValue());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        int docCount = in.readInt();
+        for (int i = 0; i < docCount; i++) {
+            int docId = in.readInt();
+            int termCount = in.readInt();
+            Map<String, Integer> terms = new HashMap<>();
+            for (int j = 0; j < termCount; j++) {
+                terms.put(in.readUTF(), in.readInt());
+            }
+            put(docId, terms);
+        }
+    }
+
+    public static class Hit {
+        private final int docId;
+        private final double score;
+
+        public Hit(int docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+
+        public int getDocId() { return docId; }
+        public double getScore() { return score; }
+    }
+
+    public static class Result {
+        private final List<Hit> hits;
+        private final int totalHits;
+
+        public Result(List<Hit> hits, int totalHits) {
+            this.hits = hits;
+            this.totalHits = totalHits;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        public int getTotalHits() { return totalHits; }
+    }
+}
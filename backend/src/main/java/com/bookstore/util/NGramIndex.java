@@ -0,0 +1,84 @@
+package com.bookstore.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram index over a term vocabulary, used to find terms within a small edit distance
+ * of a query term without comparing it against the whole vocabulary.
+ * Terms are padded with '^' and '$' so that short terms and word edges still produce trigrams.
+ * Terms are only ever added; callers should ignore candidates that no longer occur in any document.
+ */
+public class NGramIndex {
+    private static final int N = 3;
+
+    private final Map<String, Set<String>> termsByGram = new ConcurrentHashMap<>();
+    private final Set<String> vocabulary = ConcurrentHashMap.newKeySet();
+
+    public void add(String term) {
+        if (!vocabulary.add(term)) {
+            return;
+        }
+        for (String gram : grams(term)) {
+            termsByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term);
+        }
+    }
+
+    public void clear() {
+        termsByGram.clear();
+        vocabulary.clear();
+    }
+
+    /**
+     * Terms within maxEdits of the given term, mapped to their edit distance.
+     * Uses the q-gram lemma: an insertion, deletion or substitution destroys at most N grams and an
+     * adjacent transposition (one edit for {@link TextAnalyzer#editDistance}) at most N + 1, so a match
+     * must share at least |grams(term)| - (N + 1) * maxEdits of them.
+     */
+    public Map<String, Integer> similarTerms(String term, int maxEdits) {
+        Set<String> queryGrams = grams(term);
+        int minShared = Math.max(1, queryGrams.size() - (N + 1) * maxEdits);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms == null) {
+                continue;
+            }
+            for (String candidate : terms) {
+                if (Math.abs(candidate.length() - term.length()) <= maxEdits) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<String, Integer> matches = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() < minShared) {
+                continue;
+            }
+            int distance = TextAnalyzer.editDistance(term, entry.getKey(), maxEdits);
+            if (distance <= maxEdits) {
+                matches.put(entry.getKey(), distance);
+            }
+        }
+        return matches;
+    }
+
+    private static Set<String> grams(String term) {
+        String padded = "^" + term + "$";
+        Set<String> grams = new HashSet<>();
+        if (padded.length() < N) {
+            grams.add(padded);
+            return grams;
+        }
+        for (int i = 0; i + N <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + N));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed order status transitions:
+ * pending → confirmed | cancelled, confirmed → shipped | cancelled, shipped → delivered.
+ * Delivered and cancelled are final. Statuses compare case-insensitively.
+ */
+public final class OrderStateMachine {
+    private static final Map<String, Set<String>> NEXT = Map.of(
+            Constants.ORDER_STATUS_PENDING, Set.of(Constants.ORDER_STATUS_CONFIRMED, Constants.ORDER_STATUS_CANCELLED),
+            Constants.ORDER_STATUS_CONFIRMED, Set.of(Constants.ORDER_STATUS_SHIPPED, Constants.ORDER_STATUS_CANCELLED),
+            Constants.ORDER_STATUS_SHIPPED, Set.of(Constants.ORDER_STATUS_DELIVERED),
+            Constants.ORDER_STATUS_DELIVERED, Set.of(),
+            Constants.ORDER_STATUS_CANCELLED, Set.of());
+
+    private OrderStateMachine() {}
+
+    /**
+     * The canonical lower-case form of a known status, or null for anything else.
+     */
+    public static String normalize(String status) {
+        if (status == null) {
+            return null;
+        }
+        String lower = status.trim().toLowerCase(Locale.ROOT);
+        return NEXT.containsKey(lower) ? lower : null;
+    }
+
+    /**
+     * Whether an order may move from one status to a different one. Rows with a status outside the
+     * machine (left over from before it existed) may move to any known status, so they can be repaired.
+     */
+    public static boolean canMove(String from, String to) {
+        String target = normalize(to);
+        if (target == null) {
+            return false;
+        }
+        String source = normalize(from);
+        if (source == null) {
+            return true;
+        }
+        return NEXT.get(source).contains(target);
+    }
+
+    public static Set<String> nextStatuses(String from) {
+        String source = normalize(from);
+        return source != null ? NEXT.get(source) : NEXT.keySet();
+    }
+
+    public static boolean isFinal(String status) {
+        String source = normalize(status);
+        return source != null && NEXT.get(source).isEmpty();
+    }
+}
@@ -0,0 +1,240 @@
+package com.bookstore.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Character trie for search-as-you-type completions.
+ * Every node caches the {@code maxResults} heaviest entries of its subtree, so a lookup is a walk
+ * down the prefix plus a copy of that cached list. Inserts and removals only recompute the
+ * caches along the affected paths.
+ * An entry can be reachable through several keys (e.g. a title and each of its later words).
+ */
+public class PrefixTrie {
+    private final int maxResults;
+    private final Node root = new Node();
+    private final Map<String, Indexed> byId = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PrefixTrie(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Insert or replace an entry under the given keys.
+     */
+    public void put(Entry entry, Collection<String> keys) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(entry.getId());
+            Set<String> distinctKeys = new HashSet<>(keys);
+            distinctKeys.remove("");
+            for (String key : distinctKeys) {
+                List<Node> path = pathTo(key, true);
+                path.get(path.size() - 1).terminal.add(entry);
+                refresh(path);
+            }
+            byId.put(entry.getId(), new Indexed(entry, distinctKeys));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Change the weight of an existing entry without re-inserting it under its keys.
+     * @return false if there is no entry with this id
+     */
+    public boolean reweight(String id, long weight) {
+        lock.writeLock().lock();
+        try {
+            Indexed indexed = byId.get(id);
+            if (indexed == null) {
+                return false;
+            }
+            if (indexed.entry.getWeight() == weight) {
+                return true;
+            }
+            Entry updated = new Entry(id, indexed.entry.getText(), weight);
+            for (String key : indexed.keys) {
+                List<Node> path = pathTo(key, false);
+                if (path != null) {
+                    path.get(path.size() - 1).terminal.replaceAll(e -> e.getId().equals(id) ? updated : e);
+                    refresh(path);
+                }
+            }
+            byId.put(id, new Indexed(updated, indexed.keys));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Entry get(String id) {
+        lock.readLock().lock();
+        try {
+            Indexed indexed = byId.get(id);
+            return indexed == null ? null : indexed.entry;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.terminal.clear();
+            root.top = new Entry[0];
+            byId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Heaviest entries whose keys start with the prefix, best first.
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            Entry[] top = node.top;
+            return new ArrayList<>(Arrays.asList(top).subList(0, Math.min(limit, top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(String id) {
+        Indexed indexed = byId.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String key : indexed.keys) {
+            List<Node> path = pathTo(key, false);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).terminal.removeIf(e -> e.getId().equals(id));
+            refresh(path);
+            prune(path, key);
+        }
+    }
+
+    private List<Node> pathTo(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(c, child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Recompute the cached top entries bottom-up along a root-to-node path.
+     */
+    private void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Entry> candidates = new ArrayList<>(node.terminal);
+            for (Node child : node.children.values()) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(Entry.BY_WEIGHT);
+            List<Entry> top = new ArrayList<>(maxResults);
+            Set<String> seen = new HashSet<>();
+            for (Entry candidate : candidates) {
+                if (top.size() == maxResults) {
+                    break;
+                }
+                if (seen.add(candidate.getId())) {
+                    top.add(candidate);
+                }
+            }
+            node.top = top.toArray(new Entry[0]);
+        }
+    }
+
+    /**
+     * Drop nodes that no longer lead to any entry.
+     */
+    private void prune(List<Node> path, String key) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.terminal.isEmpty() || !node.children.isEmpty()) {
+                return;
+            }
+            path.get(i - 1).children.remove(key.charAt(i - 1));
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> terminal = new ArrayList<>(1);
+        private Entry[] top = new Entry[0];
+    }
+
+    private static class Indexed {
+        private final Entry entry;
+        private final Set<String> keys;
+
+        private Indexed(Entry entry, Set<String> keys) {
+            this.entry = entry;
+            this.keys = keys;
+        }
+    }
+
+    public static class Entry {
+        private static final Comparator<Entry> BY_WEIGHT =
+                Comparator.comparingLong(Entry::getWeight).reversed().thenComparing(Entry::getText);
+
+        private final String id;
+        private final String text;
+        private final long weight;
+
+        public Entry(String id, String text, long weight) {
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+        }
+
+        public String getId() { return id; }
+        public String getText() { return text; }
+        public long getWeight() { return weight; }
+    }
+}
@@ -0,0 +1,471 @@
+package com.bookstore.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented store of order lines for ad-hoc sales analytics. Every attribute is its own primitive array,
+ * so a query is one tight loop over int and long arrays instead of a walk over row objects, and the rows are
+ * split into one contiguous range per core. A line's rows are appended together with the rest of its order,
+ * which lets a status change find them from the order id alone.
+ * Appends and status changes take the write lock; queries share the read lock.
+ */
+public class SalesFactTable {
+    public enum GroupBy { NONE, DAY, MONTH, CATEGORY, AUTHOR, BOOK, PRICE_BAND, STATUS }
+
+    // A query may not aggregate into more groups than this
+    private static final int MAX_GROUPS = 1 << 21;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Byte> statusCodes = new HashMap<>();
+    private final List<String> statusNames = new ArrayList<>();
+
+    private int size;
+    private int[] orderIds = new int[1024];
+    private int[] days = new int[1024];
+    private int[] bookIds = new int[1024];
+    private int[] categoryIds = new int[1024];
+    private int[] authorIds = new int[1024];
+    private int[] quantities = new int[1024];
+    private long[] unitPrices = new long[1024];
+    private long[] amounts = new long[1024];
+    private byte[] statuses = new byte[1024];
+    // First row of each order plus one, indexed by order id; 0 means the order has no rows
+    private int[] firstRowOfOrder = new int[1024];
+    private int maxCategoryId;
+    private int maxAuthorId;
+    private int maxBookId;
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    /**
+     * Add an order's lines. Ids of missing categories and authors are 0; prices are in minor units.
+     * @return false, with nothing added, if the order is already in the table
+     */
+    public boolean appendOrder(int orderId, int day, String status, int[] lineBookIds, int[] lineCategoryIds,
+                               int[] lineAuthorIds, int[] lineQuantities, long[] lineUnitPrices) {
+        int lines = lineBookIds.length;
+        if (lines == 0 || orderId <= 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (orderId < firstRowOfOrder.length && firstRowOfOrder[orderId] != 0) {
+                return false;
+            }
+            ensureCapacity(size + lines);
+            if (orderId >= firstRowOfOrder.length) {
+                firstRowOfOrder = Arrays.copyOf(firstRowOfOrder, Math.max(orderId + 1, firstRowOfOrder.length * 2));
+            }
+            firstRowOfOrder[orderId] = size + 1;
+            byte code = statusCode(status);
+            for (int i = 0; i < lines; i++) {
+                int row = size++;
+                orderIds[row] = orderId;
+                days[row] = day;
+                bookIds[row] = lineBookIds[i];
+                categoryIds[row] = Math.max(0, lineCategoryIds[i]);
+                authorIds[row] = Math.max(0, lineAuthorIds[i]);
+                quantities[row] = lineQuantities[i];
+                unitPrices[row] = lineUnitPrices[i];
+                amounts[row] = lineUnitPrices[i] * lineQuantities[i];
+                statuses[row] = code;
+                maxBookId = Math.max(maxBookId, bookIds[row]);
+                maxCategoryId = Math.max(maxCategoryId, categoryIds[row]);
+                maxAuthorId = Math.max(maxAuthorId, authorIds[row]);
+            }
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of rows changed; 0 if the order is not in the table
+     */
+    public int setStatus(int orderId, String status) {
+        lock.writeLock().lock();
+        try {
+            if (orderId <= 0 || orderId >= firstRowOfOrder.length || firstRowOfOrder[orderId] == 0) {
+                return 0;
+            }
+            byte code = statusCode(status);
+            int changed = 0;
+            for (int row = firstRowOfOrder[orderId] - 1; row < size && orderIds[row] == orderId; row++) {
+                statuses[row] = code;
+                changed++;
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Earliest and latest day in the table as epoch days, or null while it is empty.
+     */
+    public int[] dayRange() {
+        lock.readLock().lock();
+        try {
+            return size == 0 ? null : new int[] {minDay, maxDay};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) orderIds.length * (6 * Integer.BYTES + 2 * Long.BYTES + 1) + (long) firstRowOfOrder.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filter and aggregate in one pass, split over the pool's workers.
+     */
+    public Result query(Query query, ForkJoinPool pool) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(query);
+            int rows = size;
+            int tasks = Math.max(1, Math.min(pool.getParallelism(), rows / 4096 + 1));
+            Partial total = pool.submit(() -> IntStream.range(0, tasks).parallel()
+                    .mapToObj(t -> scan.run((int) ((long) rows * t / tasks), (int) ((long) rows * (t + 1) / tasks)))
+                    .reduce(Partial::merge)
+                    .orElseGet(() -> new Partial(scan.groups))).join();
+            return scan.result(total, rows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte statusCode(String status) {
+        String name = status != null ? status.toLowerCase(Locale.ROOT) : "";
+        Byte code = statusCodes.get(name);
+        if (code == null) {
+            if (statusNames.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct order statuses");
+            }
+            code = (byte) statusNames.size();
+            statusNames.add(name);
+            statusCodes.put(name, code);
+        }
+        return code;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= orderIds.length) {
+            return;
+        }
+        int capacity = Math.max(needed, orderIds.length + (orderIds.length >> 1));
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        days = Arrays.copyOf(days, capacity);
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        unitPrices = Arrays.copyOf(unitPrices, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+    }
+
+    private static int monthIndex(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static boolean[] mask(int[] ids, int maxId) {
+        if (ids == null) {
+            return null;
+        }
+        boolean[] mask = new boolean[maxId + 1];
+        for (int id : ids) {
+            if (id >= 0 && id <= maxId) {
+                mask[id] = true;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * One query's compiled filters and group mapping, read by every worker. Built under the read lock,
+     * so the column arrays it captures cannot change while it runs.
+     */
+    private final class Scan {
+        final int dayFrom;
+        final int dayTo;
+        final long minPrice;
+        final long maxPrice;
+        final boolean[] categoryMask;
+        final boolean[] authorMask;
+        final boolean[] statusMask;
+        final GroupBy groupBy;
+        final long bandWidth;
+        final int[] monthOfDay;
+        final int monthBase;
+        final int monthDayFrom;
+        final int groups;
+        final int[] cDays = days;
+        final int[] cBookIds = bookIds;
+        final int[] cCategoryIds = categoryIds;
+        final int[] cAuthorIds = authorIds;
+        final int[] cQuantities = quantities;
+        final long[] cUnitPrices = unitPrices;
+        final long[] cAmounts = amounts;
+        final byte[] cStatuses = statuses;
+
+        Scan(Query query) {
+            dayFrom = query.dayFrom;
+            dayTo = query.dayTo;
+            if (dayTo < dayFrom) {
+                throw new IllegalArgumentException("The range ends before it starts");
+            }
+            minPrice = query.minUnitPrice;
+            maxPrice = query.maxUnitPrice;
+            categoryMask = mask(query.categoryIds, maxCategoryId);
+            authorMask = mask(query.authorIds, maxAuthorId);
+            if (query.statuses != null || query.excludedStatuses != null) {
+                statusMask = new boolean[statusNames.size()];
+                Arrays.fill(statusMask, query.statuses == null);
+                setCodes(statusMask, query.statuses, true);
+                setCodes(statusMask, query.excludedStatuses, false);
+            } else {
+                statusMask = null;
+            }
+            groupBy = query.groupBy != null ? query.groupBy : GroupBy.NONE;
+            bandWidth = query.bandWidth;
+            if (groupBy == GroupBy.MONTH) {
+                monthBase = monthIndex(dayFrom);
+                // Only the days that hold rows are ever looked up, however wide the requested range
+                monthDayFrom = Math.max(dayFrom, minDay);
+                long lastDay = Math.min(dayTo, maxDay);
+                monthOfDay = new int[(int) Math.max(0, lastDay - monthDayFrom + 1)];
+                for (int i = 0; i < monthOfDay.length; i++) {
+                    monthOfDay[i] = monthIndex(monthDayFrom + i) - monthBase;
+                }
+            } else {
+                monthBase = 0;
+                monthDayFrom = 0;
+                monthOfDay = null;
+            }
+            long count = switch (groupBy) {
+                case NONE -> 1;
+                case DAY -> (long) dayTo - dayFrom + 1;
+                case MONTH -> (long) monthIndex(dayTo) - monthBase + 1;
+                case CATEGORY -> maxCategoryId + 1;
+                case AUTHOR -> maxAuthorId + 1;
+                case BOOK -> maxBookId + 1;
+                case PRICE_BAND -> {
+                    if (bandWidth <= 0) {
+                        throw new IllegalArgumentException("bandWidth must be positive to group by price band");
+                    }
+                    long top = maxPrice != Long.MAX_VALUE ? maxPrice : maxUnitPrice();
+                    yield top / bandWidth + 1;
+                }
+                case STATUS -> Math.max(1, statusNames.size());
+            };
+            if (count <= 0 || count > MAX_GROUPS) {
+                throw new IllegalArgumentException("Query would produce " + count + " groups; narrow the range or widen the bands");
+            }
+            groups = (int) count;
+        }
+
+        private void setCodes(boolean[] mask, List<String> names, boolean value) {
+            if (names == null) {
+                return;
+            }
+            for (String name : names) {
+                Byte code = statusCodes.get(name.toLowerCase(Locale.ROOT));
+                if (code != null) {
+                    mask[code] = value;
+                }
+            }
+        }
+
+        Partial run(int from, int to) {
+            Partial partial = new Partial(groups);
+            long[] units = partial.units;
+            long[] revenue = partial.revenue;
+            long[] lines = partial.lines;
+            for (int row = from; row < to; row++) {
+                int day = cDays[row];
+                if (day < dayFrom || day > dayTo) {
+                    continue;
+                }
+                long price = cUnitPrices[row];
+                if (price < minPrice || price >= maxPrice) {
+                    continue;
+                }
+                if (statusMask != null && !statusMask[cStatuses[row]]) {
+                    continue;
+                }
+                if (categoryMask != null && !categoryMask[cCategoryIds[row]]) {
+                    continue;
+                }
+                if (authorMask != null && !authorMask[cAuthorIds[row]]) {
+                    continue;
+                }
+                int group = switch (groupBy) {
+                    case NONE -> 0;
+                    case DAY -> day - dayFrom;
+                    case MONTH -> monthOfDay[day - monthDayFrom];
+                    case CATEGORY -> cCategoryIds[row];
+                    case AUTHOR -> cAuthorIds[row];
+                    case BOOK -> cBookIds[row];
+                    case PRICE_BAND -> (int) Math.min(price / bandWidth, groups - 1);
+                    case STATUS -> cStatuses[row];
+                };
+                units[group] += cQuantities[row];
+                revenue[group] += cAmounts[row];
+                lines[group]++;
+            }
+            return partial;
+        }
+
+        Result result(Partial total, int scanned) {
+            Result result = new Result(groupBy, scanned);
+            for (int group = 0; group < groups; group++) {
+                if (total.lines[group] == 0) {
+                    continue;
+                }
+                result.matchedRows += total.lines[group];
+                result.groups.add(new Group(key(group), total.units[group], total.revenue[group], total.lines[group]));
+            }
+            return result;
+        }
+
+        private String key(int group) {
+            return switch (groupBy) {
+                case NONE -> "all";
+                case DAY -> LocalDate.ofEpochDay(dayFrom + group).toString();
+                case MONTH -> {
+                    int month = monthBase + group;
+                    yield String.format("%04d-%02d", month / 12, month % 12 + 1);
+                }
+                case PRICE_BAND -> String.valueOf(group * bandWidth);
+                case STATUS -> statusNames.get(group);
+                default -> String.valueOf(group);
+            };
+        }
+
+        private long maxUnitPrice() {
+            long max = 0;
+            for (int row = 0; row < size; row++) {
+                max = Math.max(max, cUnitPrices[row]);
+            }
+            return max;
+        }
+    }
+
+    private static final class Partial {
+        final long[] units;
+        final long[] revenue;
+        final long[] lines;
+
+        Partial(int groups) {
+            units = new long[groups];
+            revenue = new long[groups];
+            lines = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < units.length; i++) {
+                units[i] += other.units[i];
+                revenue[i] += other.revenue[i];
+                lines[i] += other.lines[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Filters of one query. Days are epoch days and inclusive; the price range is in minor units, upper bound
+     * exclusive. Null id and status lists mean no filter; excluded statuses win over included ones.
+     */
+    public static class Query {
+        private int dayFrom;
+        private int dayTo;
+        private int[] categoryIds;
+        private int[] authorIds;
+        private List<String> statuses;
+        private List<String> excludedStatuses;
+        private long minUnitPrice = 0;
+        private long maxUnitPrice = Long.MAX_VALUE;
+        private GroupBy groupBy = GroupBy.NONE;
+        private long bandWidth;
+
+        public Query(int dayFrom, int dayTo) {
+            this.dayFrom = dayFrom;
+            this.dayTo = dayTo;
+        }
+
+        public void setCategoryIds(int[] categoryIds) { this.categoryIds = categoryIds; }
+        public void setAuthorIds(int[] authorIds) { this.authorIds = authorIds; }
+        public void setStatuses(List<String> statuses) { this.statuses = statuses; }
+        public void setExcludedStatuses(List<String> excludedStatuses) { this.excludedStatuses = excludedStatuses; }
+        public void setMinUnitPrice(long minUnitPrice) { this.minUnitPrice = minUnitPrice; }
+        public void setMaxUnitPrice(long maxUnitPrice) { this.maxUnitPrice = maxUnitPrice; }
+        public void setGroupBy(GroupBy groupBy) { this.groupBy = groupBy; }
+        public void setBandWidth(long bandWidth) { this.bandWidth = bandWidth; }
+    }
+
+    public static class Result {
+        private final GroupBy groupBy;
+        private final int scannedRows;
+        private long matchedRows;
+        private final List<Group> groups = new ArrayList<>();
+
+        Result(GroupBy groupBy, int scannedRows) {
+            this.groupBy = groupBy;
+            this.scannedRows = scannedRows;
+        }
+
+        public GroupBy getGroupBy() { return groupBy; }
+        public int getScannedRows() { return scannedRows; }
+        public long getMatchedRows() { return matchedRows; }
+        public List<Group> getGroups() { return groups; }
+    }
+
+    /**
+     * One group of a result; revenue is in minor units.
+     */
+    public static class Group {
+        private final String key;
+        private final long units;
+        private final long revenue;
+        private final long lines;
+
+        Group(String key, long units, long revenue, long lines) {
+            this.key = key;
+            this.units = units;
+            this.revenue = revenue;
+            this.lines = lines;
+        }
+
+        public String getKey() { return key; }
+        public long getUnits() { return units; }
+        public long getRevenue() { return revenue; }
+        public long getLines() { return lines; }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bookstore.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A non-negative count split over several stripes, each decremented with its own CAS, so concurrent takers
+ * mostly touch different cache lines instead of all spinning on one value.
+ * A take that no single stripe can cover collects from the others and gives everything back if the total
+ * falls short, so the count never goes below zero. A concurrent take may see such a give-back in progress
+ * and fail even though the total would have covered it; it never succeeds when it should not.
+ */
+public class StripedCounter {
+    // Stripes sit 16 ints (64 bytes) apart so neighbouring stripes do not share a cache line
+    private static final int PAD = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+
+    public StripedCounter(int initial, int stripes) {
+        if (initial < 0 || stripes <= 0) {
+            throw new IllegalArgumentException("initial must be non-negative and stripes positive");
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PAD);
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PAD, initial / stripes + (i < initial % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * Take qty units if that many are left.
+     * @return false, with nothing taken, if fewer than qty are left
+     */
+    public boolean tryTake(int qty) {
+        if (qty <= 0) {
+            throw new IllegalArgumentException("qty must be positive");
+        }
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        int remaining = qty;
+        int[] taken = null;
+        for (int n = 0; n < stripes && remaining > 0; n++) {
+            int stripe = (start + n) % stripes;
+            int index = stripe * PAD;
+            while (true) {
+                int available = cells.get(index);
+                if (available == 0) {
+                    break;
+                }
+                int take = Math.min(available, remaining);
+                if (cells.compareAndSet(index, available, available - take)) {
+                    remaining -= take;
+                    if (remaining > 0) {
+                        if (taken == null) {
+                            taken = new int[stripes];
+                        }
+                        taken[stripe] += take;
+                    }
+                    break;
+                }
+            }
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        if (taken != null) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    cells.getAndAdd(stripe * PAD, taken[stripe]);
+                }
+            }
+        }
+        return false;
+    }
+
+    public void add(int qty) {
+        if (qty < 0) {
+            throw new IllegalArgumentException("qty must not be negative");
+        }
+        cells.getAndAdd(ThreadLocalRandom.current().nextInt(stripes) * PAD, qty);
+    }
+
+    /**
+     * Current total; only a snapshot while takes are running.
+     */
+    public int sum() {
+        int sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+}
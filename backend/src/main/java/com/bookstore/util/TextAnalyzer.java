@@ -0,0 +1,107 @@
+package com.bookstore.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits free text into lowercase search terms.
+ * Text is NFC-normalized first so precomposed and decomposed Vietnamese characters produce the same term.
+ * fold() and editDistance() support the typo-tolerant search mode.
+ */
+public class TextAnalyzer {
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private TextAnalyzer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            if (Character.isLetterOrDigit(cp) || Character.getType(cp) == Character.NON_SPACING_MARK) {
+                current.appendCodePoint(cp);
+            } else {
+                addToken(tokens, current);
+            }
+            i += Character.charCount(cp);
+        }
+        addToken(tokens, current);
+        return tokens;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder current) {
+        if (current.length() > 0) {
+            tokens.add(current.length() > MAX_TOKEN_LENGTH ? current.substring(0, MAX_TOKEN_LENGTH) : current.toString());
+            current.setLength(0);
+        }
+    }
+
+    /**
+     * Strip diacritics from a term: "tiếng" -> "tieng", "đường" -> "duong".
+     */
+    public static String fold(String term) {
+        String decomposed = Normalizer.normalize(term, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            // đ/Đ is a separate letter, not a base letter plus a combining mark
+            if (c == '\u0111') {
+                c = 'd';
+            } else if (c == '\u0110') {
+                c = 'D';
+            }
+            folded.append(c);
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * giving up as soon as the distance is known to exceed maxDistance.
+     * @return the distance, or maxDistance + 1 if it is larger than maxDistance
+     */
+    public static int editDistance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        int prevRowMin = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                curr[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            // A transposition can reach back two rows, so both rows must be out of range to stop early
+            if (rowMin > maxDistance && prevRowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            prevRowMin = rowMin;
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = curr;
+            curr = recycled;
+        }
+        return Math.min(prev[b.length()], maxDistance + 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookstore.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Hashed timing wheel of keyed deadlines. Scheduling and cancelling are O(1); advancing the wheel
+ * only visits the slots for the ticks that passed, never the whole set of pending keys.
+ * A deadline further away than one revolution stays in its slot and is skipped until its tick comes round.
+ */
+public class TimingWheel<K> {
+    private final long tickMillis;
+    private final Set<Entry<K>>[] slots;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private final Supplier<Long> clock;
+    private final long startMillis;
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int slotCount) {
+        this(tickMillis, slotCount, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotCount, Supplier<Long> clock) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMillis and slotCount must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Set[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new LinkedHashSet<>();
+        }
+        this.clock = clock;
+        this.startMillis = clock.get();
+    }
+
+    /**
+     * Schedule (or reschedule) the key to expire at the given epoch millis. A deadline in the past
+     * expires on the next advance.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(currentTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        Entry<K> entry = new Entry<>(key, tick);
+        entries.put(key, entry);
+        slots[slotOf(tick)].add(entry);
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        slots[slotOf(entry.tick)].remove(entry);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Move the wheel up to the current time and remove and return every key whose deadline has passed.
+     */
+    public synchronized List<K> advance() {
+        long targetTick = Math.floorDiv(clock.get() - startMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        // Once a whole revolution has been swept every slot has been seen, so the remaining ticks add nothing
+        long lastTick = Math.min(targetTick, currentTick + slots.length);
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Iterator<Entry<K>> it = slots[slotOf(tick)].iterator();
+            while (it.hasNext()) {
+                Entry<K> entry = it.next();
+                if (entry.tick <= targetTick) {
+                    it.remove();
+                    entries.remove(entry.key);
+                    expired.add(entry.key);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private static final class Entry<K> {
+        final K key;
+        final long tick;
+
+        Entry(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.BookstoreApplication;
+import com.bookstore.dto.ReportDTO;
+import com.bookstore.service.ReportService;
+import com.bookstore.service.SalesRollupService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Admin sales report latency over a large order history. The setup seeds {@code orders} orders (1-3 lines each)
+ * spread over three years, rebuilds daily_sales_rollup and then times generateReport for a week, a quarter
+ * and a full year. Against the H2 test profile by default; pass {@code -Dbenchmark.profile=} with a MySQL
+ * profile to measure the production database.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.bookstore.benchmark.ReportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportBenchmark {
+    private static final Logger logger = Logger.getLogger(ReportBenchmark.class.getName());
+    private static final int CATEGORIES = 30;
+    private static final int BOOKS = 5000;
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final int BATCH = 10_000;
+    private static final String[] STATUSES = {"pending", "confirmed", "shipped", "delivered", "completed", "cancelled"};
+
+    @Param({"1000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private ReportService reportService;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(BookstoreApplication.class);
+        application.setAdditionalProfiles(System.getProperty("benchmark.profile", "test"));
+        application.setWebApplicationType(WebApplicationType.NONE);
+        context = application.run();
+        reportService = context.getBean(ReportService.class);
+        today = LocalDate.now();
+
+        long started = System.currentTimeMillis();
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(SalesRollupService.class).rebuild();
+        logger.info("Seeded " + orders + " orders in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportDTO lastWeek() {
+        return reportService.generateReport(today.minusDays(6), today, 5);
+    }
+
+    @Benchmark
+    public ReportDTO lastQuarter() {
+        return reportService.generateReport(today.minusDays(89), today, 5);
+    }
+
+    @Benchmark
+    public ReportDTO lastYear() {
+        return reportService.generateReport(today.minusDays(364), today, 5);
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int c = 1; c <= CATEGORIES; c++) {
+            rows.add(new Object[] {c, "Benchmark category " + c});
+        }
+        jdbc.batchUpdate("INSERT INTO categories (category_id, name) VALUES (?, ?)", rows);
+
+        BigDecimal[] prices = new BigDecimal[BOOKS + 1];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        rows.clear();
+        for (int b = 1; b <= BOOKS; b++) {
+            prices[b] = BigDecimal.valueOf(20_000 + random.nextInt(400) * 1000L);
+            rows.add(new Object[] {b, "Benchmark book " + b, prices[b], 1000, 1 + random.nextInt(CATEGORIES), now});
+        }
+        jdbc.batchUpdate("INSERT INTO books (book_id, title, price, stock_quantity, category_id, created_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        List<Object[]> orderRows = new ArrayList<>(BATCH);
+        List<Object[]> lineRows = new ArrayList<>(3 * BATCH);
+        LocalDateTime first = today.minusDays(HISTORY_DAYS - 1).atStartOfDay();
+        for (int o = 1; o <= orders; o++) {
+            int lines = 1 + random.nextInt(3);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int l = 0; l < lines; l++) {
+                int bookId = 1 + random.nextInt(BOOKS);
+                int quantity = 1 + random.nextInt(3);
+                lineRows.add(new Object[] {o, bookId, quantity, prices[bookId]});
+                total = total.add(prices[bookId].multiply(BigDecimal.valueOf(quantity)));
+            }
+            Timestamp at = Timestamp.valueOf(first.plusMinutes(random.nextInt(HISTORY_DAYS * 24 * 60)));
+            orderRows.add(new Object[] {o, at, STATUSES[random.nextInt(STATUSES.length)], total, "1 Benchmark Street", at});
+            if (orderRows.size() == BATCH || o == orders) {
+                jdbc.batchUpdate("INSERT INTO orders (order_id, order_date, status, total_amount, shipping_address, version, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, 0, ?)", orderRows);
+                jdbc.batchUpdate("INSERT INTO order_details (order_id, book_id, quantity, unit_price) VALUES (?, ?, ?, ?)", lineRows);
+                orderRows.clear();
+                lineRows.clear();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        // The benchmark runs in a forked JVM, so hand the profile on explicitly
+        new Runner(new OptionsBuilder()
+                .include(ReportBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dbenchmark.profile=" + System.getProperty("benchmark.profile", "test"))
+                .build()).run();
+    }
+}
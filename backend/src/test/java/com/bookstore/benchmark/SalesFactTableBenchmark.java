@@ -0,0 +1,114 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.util.SalesFactTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ad-hoc analytics scans over the sales fact table. {@code parallelism} is the size of the pool the scan is split
+ * over, so 1 against the core count shows what the per-core ranges buy; the table holds about two lines per order.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.bookstore.benchmark.SalesFactTableBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalesFactTableBenchmark {
+    private static final int FIRST_DAY = 19_000;
+    private static final int DAYS = 730;
+
+    @Param({"1000000"})
+    private int orders;
+
+    @Param({"1", "8"})
+    private int parallelism;
+
+    private SalesFactTable table;
+    private ForkJoinPool pool;
+    private SalesFactTable.Query byCategory;
+    private SalesFactTable.Query filteredByMonth;
+    private SalesFactTable.Query byBook;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new SalesFactTable();
+        Random random = new Random(42);
+        for (int orderId = 1; orderId <= orders; orderId++) {
+            int lines = 1 + random.nextInt(3);
+            int[] books = new int[lines];
+            int[] categories = new int[lines];
+            int[] authors = new int[lines];
+            int[] quantities = new int[lines];
+            long[] prices = new long[lines];
+            for (int i = 0; i < lines; i++) {
+                books[i] = 1 + random.nextInt(5000);
+                categories[i] = books[i] % 20;
+                authors[i] = books[i] % 400;
+                quantities[i] = 1 + random.nextInt(4);
+                prices[i] = (5 + random.nextInt(50)) * 100_000L;
+            }
+            String status = orderId % 10 == 0 ? "cancelled" : orderId % 3 == 0 ? "pending" : "completed";
+            table.appendOrder(orderId, FIRST_DAY + random.nextInt(DAYS), status, books, categories, authors,
+                    quantities, prices);
+        }
+        pool = new ForkJoinPool(parallelism);
+
+        byCategory = new SalesFactTable.Query(FIRST_DAY, FIRST_DAY + DAYS - 1);
+        byCategory.setExcludedStatuses(List.of("cancelled"));
+        byCategory.setGroupBy(SalesFactTable.GroupBy.CATEGORY);
+
+        filteredByMonth = new SalesFactTable.Query(FIRST_DAY + 365, FIRST_DAY + DAYS - 1);
+        filteredByMonth.setStatuses(List.of("completed"));
+        filteredByMonth.setCategoryIds(new int[]{1, 2, 3});
+        filteredByMonth.setMaxUnitPrice(3_000_000);
+        filteredByMonth.setGroupBy(SalesFactTable.GroupBy.MONTH);
+
+        byBook = new SalesFactTable.Query(FIRST_DAY, FIRST_DAY + DAYS - 1);
+        byBook.setGroupBy(SalesFactTable.GroupBy.BOOK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SalesFactTable.Result fullScanByCategory() {
+        return table.query(byCategory, pool);
+    }
+
+    @Benchmark
+    public SalesFactTable.Result filteredScanByMonth() {
+        return table.query(filteredByMonth, pool);
+    }
+
+    @Benchmark
+    public SalesFactTable.Result fullScanByBook() {
+        return table.query(byBook, pool);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SalesFactTableBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.benchmark;
+
+import com.bookstore.util.StripedCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flash-sale stock under contention. With stripes = 1 the counter is the single CAS cell every taker spins on;
+ * more stripes spread the takers out. Each operation takes one unit and puts it back, so the stock never runs out.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.bookstore.benchmark.StripedCounterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class StripedCounterBenchmark {
+    private static final int STOCK = 1_000_000;
+
+    @Param({"1", "8", "16"})
+    private int stripes;
+
+    private StripedCounter counter;
+
+    @Setup
+    public void setUp() {
+        counter = new StripedCounter(STOCK, stripes);
+    }
+
+    @Benchmark
+    public boolean stripedTakeAndGiveBack() {
+        boolean taken = counter.tryTake(1);
+        if (taken) {
+            counter.add(1);
+        }
+        return taken;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StripedCounterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
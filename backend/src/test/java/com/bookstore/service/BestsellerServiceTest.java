@@ -0,0 +1,90 @@
+package com.bookstore.service;
+
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BestsellerServiceTest {
+
+    private static Order order(LocalDateTime date) {
+        Order order = new Order();
+        order.setOrderDate(date);
+        return order;
+    }
+
+    private static OrderDetail line(int bookId, int quantity) {
+        OrderDetail line = new OrderDetail();
+        line.setBookId(bookId);
+        line.setQuantity(quantity);
+        return line;
+    }
+
+    @Test
+    void ranksByUnitsThenBookId() {
+        BestsellerService service = new BestsellerService();
+        service.recordOrder(order(LocalDateTime.now()), List.of(line(3, 2), line(1, 5), line(2, 2)), 1);
+
+        assertEquals(List.of(1, 2, 3), service.topBookIds(BestsellerService.WINDOW_ALL, null, 10));
+        assertEquals(List.of(1), service.topBookIds(BestsellerService.WINDOW_7D, null, 1));
+    }
+
+    @Test
+    void oldOrdersOnlyCountAllTime() {
+        BestsellerService service = new BestsellerService();
+        service.recordOrder(order(LocalDateTime.now().minusDays(10)), List.of(line(1, 4)), 1);
+        service.recordOrder(order(LocalDateTime.now()), List.of(line(2, 1)), 1);
+
+        assertEquals(List.of(2), service.topBookIds(BestsellerService.WINDOW_7D, null, 10));
+        assertEquals(List.of(1, 2), service.topBookIds(BestsellerService.WINDOW_30D, null, 10));
+        assertEquals(List.of(1, 2), service.topBookIds(BestsellerService.WINDOW_ALL, null, 10));
+    }
+
+    @Test
+    void keepsOnlyTheTopBooks() {
+        BestsellerService service = new BestsellerService();
+        for (int bookId = 1; bookId <= BestsellerService.MAX_RANK + 50; bookId++) {
+            service.recordOrder(order(LocalDateTime.now()), List.of(line(bookId, bookId)), 1);
+        }
+
+        List<Integer> top = service.topBookIds(BestsellerService.WINDOW_ALL, null, Integer.MAX_VALUE);
+        assertEquals(BestsellerService.MAX_RANK, top.size());
+        assertEquals(Integer.valueOf(BestsellerService.MAX_RANK + 50), top.get(0));
+        assertEquals(Integer.valueOf(51), top.get(top.size() - 1));
+    }
+
+    @Test
+    void cancellingAMemberLetsAnOutsiderBackIn() {
+        BestsellerService service = new BestsellerService();
+        for (int bookId = 1; bookId <= BestsellerService.MAX_RANK + 1; bookId++) {
+            service.recordOrder(order(LocalDateTime.now()), List.of(line(bookId, 10 + bookId)), 1);
+        }
+        assertFalse(service.topBookIds(BestsellerService.WINDOW_ALL, null, Integer.MAX_VALUE).contains(1));
+
+        // Book 101 drops to 1 unit: book 1 (11 units) now belongs in the top set instead
+        int last = BestsellerService.MAX_RANK + 1;
+        service.recordOrder(order(LocalDateTime.now()), List.of(line(last, 10 + last - 1)), -1);
+
+        List<Integer> top = service.topBookIds(BestsellerService.WINDOW_ALL, null, Integer.MAX_VALUE);
+        assertEquals(BestsellerService.MAX_RANK, top.size());
+        assertTrue(top.contains(1));
+        assertFalse(top.contains(last));
+        assertEquals(Integer.valueOf(1), top.get(top.size() - 1));
+    }
+
+    @Test
+    void reversedOrderLeavesNoRanking() {
+        BestsellerService service = new BestsellerService();
+        List<OrderDetail> lines = List.of(line(7, 3));
+        service.recordOrder(order(LocalDateTime.now()), lines, 1);
+        service.recordOrder(order(LocalDateTime.now()), lines, -1);
+
+        assertEquals(List.of(), service.topBookIds(BestsellerService.WINDOW_30D, null, 10));
+    }
+}
@@ -0,0 +1,146 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.FacetCountDTO;
+import com.bookstore.model.Author;
+import com.bookstore.model.Book;
+import com.bookstore.model.Category;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookFacetIndexTest {
+    private static final int BOOKS = 2000;
+    private static final int CATEGORIES = 7;
+    private static final int AUTHORS = 300;
+
+    private final List<Book> books = new ArrayList<>();
+    private final BookFacetIndex index = new BookFacetIndex();
+
+    private void build() {
+        Random random = new Random(42);
+        for (int id = 1; id <= BOOKS; id++) {
+            Book book = new Book();
+            book.setBookId(id);
+            book.setTitle("Book " + id);
+            int category = 1 + random.nextInt(CATEGORIES);
+            book.setCategory(new Category(category, "Category " + category, null));
+            int author = 1 + random.nextInt(AUTHORS);
+            book.setAuthor(new Author(author, "Author " + author, null));
+            book.setPrice(BigDecimal.valueOf(10_000 + random.nextInt(700_000)));
+            book.setPublicationYear(1950 + random.nextInt(75));
+            books.add(book);
+            index.index(book);
+        }
+    }
+
+    /**
+     * Facet counts computed the slow way: every book matching the other facets' filters.
+     */
+    private Map<String, Integer> expectedCounts(List<Integer> candidates, Integer categoryFilter, Integer authorFilter,
+                                                boolean countCategories) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Book book : books) {
+            if (candidates != null && !candidates.contains(book.getBookId())) {
+                continue;
+            }
+            if (!countCategories && categoryFilter != null && !categoryFilter.equals(book.getCategory().getCategoryId())) {
+                continue;
+            }
+            if (countCategories && authorFilter != null && !authorFilter.equals(book.getAuthor().getAuthorId())) {
+                continue;
+            }
+            Integer value = countCategories ? book.getCategory().getCategoryId() : book.getAuthor().getAuthorId();
+            counts.merge(String.valueOf(value), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> asMap(List<FacetCountDTO> facet) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (FacetCountDTO value : facet) {
+            counts.put(value.getValue(), value.getCount());
+        }
+        return counts;
+    }
+
+    @Test
+    void countsWithoutFiltersComeFromTheWholeCatalog() {
+        build();
+        BookFacetIndex.Result result = index.search(null, Map.of(), 0, 10);
+
+        assertEquals(BOOKS, result.getTotal());
+        assertEquals(expectedCounts(null, null, null, true), asMap(result.getFacets().get(BookFacetIndex.CATEGORY)));
+        int priceTotal = result.getFacets().get(BookFacetIndex.PRICE).stream().mapToInt(FacetCountDTO::getCount).sum();
+        assertEquals(BOOKS, priceTotal);
+    }
+
+    @Test
+    void countsAreTakenOverTheOtherFacetsFilters() {
+        build();
+        Map<String, Collection<Integer>> filters = Map.of(BookFacetIndex.CATEGORY, List.of(3));
+        BookFacetIndex.Result result = index.search(null, filters, 0, 10);
+
+        // Category counts ignore the category filter itself
+        assertEquals(expectedCounts(null, null, null, true), asMap(result.getFacets().get(BookFacetIndex.CATEGORY)));
+        // Author counts (top 20 shown) are within category 3 only
+        Map<String, Integer> expectedAuthors = expectedCounts(null, 3, null, false);
+        for (Map.Entry<String, Integer> shown : asMap(result.getFacets().get(BookFacetIndex.AUTHOR)).entrySet()) {
+            assertEquals(expectedAuthors.get(shown.getKey()), shown.getValue(), "author " + shown.getKey());
+        }
+    }
+
+    @Test
+    void narrowKeywordScopeGivesTheSameCountsAsTheBitsetPath() {
+        build();
+        // Fewer candidates than authors: the scope walk is used for authors, bitsets for the rest
+        List<Integer> candidates = List.of(5, 17, 300, 301, 1999);
+        BookFacetIndex.Result result = index.search(candidates, Map.of(), 0, 10);
+
+        assertEquals(candidates.size(), result.getTotal());
+        assertEquals(expectedCounts(candidates, null, null, false), asMap(result.getFacets().get(BookFacetIndex.AUTHOR)));
+        assertEquals(expectedCounts(candidates, null, null, true), asMap(result.getFacets().get(BookFacetIndex.CATEGORY)));
+    }
+
+    @Test
+    void pageFarPastTheEndIsEmpty() {
+        build();
+        BookFacetIndex.Result browse = index.search(null, Map.of(), 30_000_000, 100);
+        BookFacetIndex.Result keyword = index.search(List.of(5, 17, 300), Map.of(), 30_000_000, 100);
+
+        assertTrue(browse.getBookIds().isEmpty());
+        assertEquals(BOOKS, browse.getTotal());
+        assertTrue(keyword.getBookIds().isEmpty());
+    }
+
+    @Test
+    void removedBooksLeaveTheCounts() {
+        build();
+        for (Book book : books) {
+            if (book.getCategory().getCategoryId() == 1) {
+                index.remove(book.getBookId());
+            }
+        }
+        BookFacetIndex.Result result = index.search(null, Map.of(), 0, 10);
+
+        assertFalse(asMap(result.getFacets().get(BookFacetIndex.CATEGORY)).containsKey("1"));
+    }
+
+    @Test
+    void notReadyUntilMarked() {
+        assertFalse(index.isReady());
+        index.markReady();
+        assertTrue(index.isReady());
+        index.clear();
+        assertFalse(index.isReady());
+    }
+}
@@ -0,0 +1,70 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.SuggestionDTO;
+import com.bookstore.model.Author;
+import com.bookstore.model.Book;
+import com.bookstore.model.Category;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSuggestIndexTest {
+
+    private static Book book(int id, String title, Author author, int reviews) {
+        Book book = new Book();
+        book.setBookId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setCategory(new Category(1, "Văn học", null));
+        book.setRatingCount(reviews);
+        return book;
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getText).toList();
+    }
+
+    @Test
+    void reviewCountChangesReorderBooks() {
+        BookSuggestIndex index = new BookSuggestIndex();
+        Author author = new Author(1, "Nguyễn Nhật Ánh", null);
+        index.index(book(1, "Mắt biếc", author, 5));
+        index.index(book(2, "Mùa hè không tên", author, 1));
+
+        assertEquals(List.of("Mắt biếc", "Mùa hè không tên"), texts(index.suggest("m", 10)));
+
+        index.adjustPopularity(2, 10);
+        assertEquals(List.of("Mùa hè không tên", "Mắt biếc"), texts(index.suggest("m", 10)));
+    }
+
+    @Test
+    void rebuildWritesAuthorsAndCategoriesWithTheirBookCounts() {
+        BookSuggestIndex index = new BookSuggestIndex();
+        Author popular = new Author(1, "Tô Hoài", null);
+        Author other = new Author(2, "Tô Ngọc Vân", null);
+        index.beginRebuild();
+        index.index(book(1, "Dế mèn phiêu lưu ký", popular, 0));
+        index.index(book(2, "Vợ chồng A Phủ", popular, 0));
+        index.index(book(3, "Hội họa", other, 0));
+        assertTrue(index.suggest("to", 10).isEmpty());
+        index.endRebuild();
+
+        assertEquals(List.of("Tô Hoài", "Tô Ngọc Vân"), texts(index.suggest("to", 10)));
+        assertEquals(List.of("Văn học"), texts(index.suggest("van hoc", 10)));
+
+        index.remove(1);
+        index.remove(2);
+        assertEquals(List.of("Tô Ngọc Vân"), texts(index.suggest("to", 10)));
+    }
+
+    @Test
+    void renamedAuthorIsFoundUnderTheNewName() {
+        BookSuggestIndex index = new BookSuggestIndex();
+        index.index(book(1, "Số đỏ", new Author(1, "Vu Trong Phung", null), 0));
+        index.index(book(1, "Số đỏ", new Author(1, "Vũ Trọng Phụng", null), 0));
+
+        assertEquals(List.of("Vũ Trọng Phụng"), texts(index.suggest("phung", 10)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.bookstore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class IdempotencyServiceTest {
+    private static final Map<String, Object> BODY = Map.of("userId", 1, "shippingAddress", "1 Test Street");
+
+    private static IdempotencyService service(int maxKeys) {
+        IdempotencyService service = new IdempotencyService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "maxKeys", maxKeys);
+        ReflectionTestUtils.setField(service, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(service, "waitSeconds", 10L);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void retryGetsTheFirstResponse() {
+        IdempotencyService service = service(10);
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> first = service.execute("orders:user:1", "key", BODY,
+                () -> ResponseEntity.status(201).body("order " + runs.incrementAndGet()));
+        ResponseEntity<?> retry = service.execute("orders:user:1", "key", BODY,
+                () -> ResponseEntity.status(201).body("order " + runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals("order 1", first.getBody());
+        assertEquals("order 1", retry.getBody());
+    }
+
+    @Test
+    void runningRequestIsNotEvictedByNewerKeys() throws Exception {
+        IdempotencyService service = service(1);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> original = pool.submit(() -> service.execute("orders:user:1", "slow", BODY, () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.status(201).body("first");
+            }));
+            started.await(10, TimeUnit.SECONDS);
+
+            // More finished keys than the store holds
+            for (int i = 0; i < 5; i++) {
+                service.execute("orders:user:1", "other-" + i, BODY, () -> ResponseEntity.ok("other"));
+            }
+            Future<ResponseEntity<?>> duplicate = pool.submit(() -> service.execute("orders:user:1", "slow", BODY, () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.status(201).body("second");
+            }));
+            release.countDown();
+
+            assertEquals("first", original.get(10, TimeUnit.SECONDS).getBody());
+            assertEquals("first", duplicate.get(10, TimeUnit.SECONDS).getBody());
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void callersWithoutATokenAreScopedByTheBodyOwner() {
+        IdempotencyService service = service(10);
+
+        assertEquals("orders:user:1", service.scope("orders", null, "user:1"));
+        assertNotEquals(service.scope("orders", null, "user:1"), service.scope("orders", null, "user:2"));
+        assertEquals("payments:order:7", service.scope("payments", null, "order:7"));
+        assertEquals("orders:anonymous", service.scope("orders", null, null));
+    }
+}
@@ -0,0 +1,136 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ConflictException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceOversellTest {
+    private static final int STOCK = 10;
+    private static final int BUYERS = 40;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    private Book saveBook(String title, int stock) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(new BigDecimal("100000"));
+        book.setStockQuantity(stock);
+        return bookRepository.save(book);
+    }
+
+    private static Order checkout(Integer bookId, int quantity) {
+        OrderDetail line = new OrderDetail();
+        line.setBookId(bookId);
+        line.setQuantity(quantity);
+        Order order = new Order();
+        order.setShippingAddress("1 Test Street");
+        order.setPaymentMethod(Constants.PAYMENT_METHOD_BANK_TRANSFER);
+        order.setItems(new ArrayList<>(List.of(line)));
+        return order;
+    }
+
+    @Test
+    void parallelCheckoutsNeverSellMoreThanTheStock() throws Exception {
+        Integer bookId = saveBook("Oversell", STOCK).getBookId();
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(checkout(bookId, 1));
+                        placed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(STOCK, placed.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(Integer.valueOf(0), bookRepository.findById(bookId).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void multiCopyCheckoutsStopAtTheLastFullOrder() throws Exception {
+        Integer bookId = saveBook("Oversell by three", STOCK).getBookId();
+        AtomicInteger placed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrder(checkout(bookId, 3));
+                        placed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        // Sold out
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(STOCK / 3, placed.get());
+        assertEquals(Integer.valueOf(STOCK % 3), bookRepository.findById(bookId).orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void cachedBookShowsTheCommittedStock() {
+        Integer bookId = saveBook("Cache after checkout", STOCK).getBookId();
+        catalogCache.getBook(bookId);
+
+        orderService.createOrder(checkout(bookId, 2));
+
+        assertEquals(Integer.valueOf(STOCK - 2), catalogCache.getBook(bookId).orElseThrow().getStockQuantity());
+    }
+}
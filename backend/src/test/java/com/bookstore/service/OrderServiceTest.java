@@ -0,0 +1,78 @@
+package com.bookstore.service;
+
+import com.bookstore.exception.ValidationException;
+import com.bookstore.model.Book;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private Order checkout(String status) {
+        Book book = new Book();
+        book.setTitle("Order status");
+        book.setPrice(new BigDecimal("50000"));
+        book.setStockQuantity(5);
+        Integer bookId = bookRepository.save(book).getBookId();
+
+        OrderDetail line = new OrderDetail();
+        line.setBookId(bookId);
+        line.setQuantity(1);
+        Order order = new Order();
+        order.setShippingAddress("1 Test Street");
+        order.setPaymentMethod(Constants.PAYMENT_METHOD_BANK_TRANSFER);
+        order.setStatus(status);
+        order.setItems(new ArrayList<>(List.of(line)));
+        return order;
+    }
+
+    @Test
+    void newOrderStartsPending() {
+        assertEquals(Constants.ORDER_STATUS_PENDING, orderService.createOrder(checkout(null)).getStatus());
+        assertEquals(Constants.ORDER_STATUS_PENDING, orderService.createOrder(checkout("PENDING")).getStatus());
+    }
+
+    @Test
+    void newOrderCannotSkipToALaterStatus() {
+        assertThrows(ValidationException.class, () -> orderService.createOrder(checkout("delivered")));
+        assertThrows(ValidationException.class, () -> orderService.createOrder(checkout(Constants.ORDER_STATUS_CANCELLED)));
+    }
+
+    @Test
+    void orderWithoutItemsIsRejected() {
+        Order order = checkout(null);
+        order.setItems(new ArrayList<>());
+        order.setTotalAmount(BigDecimal.ONE);
+
+        assertThrows(ValidationException.class, () -> orderService.createOrder(order));
+    }
+
+    @Test
+    void totalComesFromTheCatalogPrices() {
+        Order order = checkout(null);
+        order.setTotalAmount(BigDecimal.ONE);
+        order.getItems().get(0).setQuantity(3);
+
+        assertEquals(0, new BigDecimal("150000").compareTo(orderService.createOrder(order).getTotalAmount()));
+    }
+}
@@ -0,0 +1,295 @@
+package com.bookstore.service;
+
+import com.bookstore.dto.ReportDTO;
+import com.bookstore.model.Book;
+import com.bookstore.model.Category;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderDetail;
+import com.bookstore.repository.BookRepository;
+import com.bookstore.repository.CategoryRepository;
+import com.bookstore.repository.OrderDetailRepository;
+import com.bookstore.repository.OrderRepository;
+import com.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The report from daily_sales_rollup must match what the original implementation computed by loading
+ * every order and order line into memory. That implementation is kept below as the reference.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReportServiceRegressionTest {
+    private static final String[] STATUSES = {"pending", "confirmed", "shipped", "delivered", "completed", "cancelled"};
+    private static final LocalDate START = LocalDate.of(2020, 3, 10);
+    private static final LocalDate END = LocalDate.of(2020, 3, 19);
+    private static final int TOP_N = 5;
+    private static final int CATEGORIES = 8;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Rolled back afterwards, so the seeded orders stay out of the other tests
+    @Test
+    @Transactional
+    void rollupReportMatchesTheInMemoryReport() {
+        seed();
+        seedTieAtTheCutOff();
+        salesRollupService.rebuild();
+
+        ReportDTO expected = legacyReport(START, END);
+        ReportDTO actual = reportService.generateReport(START, END, TOP_N);
+
+        assertTrue(expected.getTotalOrders() > 0);
+        assertEquals(expected.getTotalOrders(), actual.getTotalOrders());
+        assertEquals(0, expected.getTotalRevenue().compareTo(actual.getTotalRevenue()));
+        assertEquals(expected.getTotalUsers(), actual.getTotalUsers());
+        assertEquals(expected.getTotalBooks(), actual.getTotalBooks());
+        assertEquals(expected.getCompletedOrders(), actual.getCompletedOrders());
+        assertEquals(expected.getPendingOrders(), actual.getPendingOrders());
+        assertEquals(expected.getShippedOrders(), actual.getShippedOrders());
+
+        assertEquals(expected.getDailyRevenue().size(), actual.getDailyRevenue().size());
+        for (int i = 0; i < expected.getDailyRevenue().size(); i++) {
+            assertEquals(expected.getDailyRevenue().get(i).getDate(), actual.getDailyRevenue().get(i).getDate());
+            assertEquals(0, expected.getDailyRevenue().get(i).getRevenue().compareTo(actual.getDailyRevenue().get(i).getRevenue()),
+                    "revenue on " + expected.getDailyRevenue().get(i).getDate());
+        }
+        assertEquals(expected.getDailyOrders().size(), actual.getDailyOrders().size());
+        for (int i = 0; i < expected.getDailyOrders().size(); i++) {
+            assertEquals(expected.getDailyOrders().get(i).getDate(), actual.getDailyOrders().get(i).getDate());
+            assertEquals(expected.getDailyOrders().get(i).getCount(), actual.getDailyOrders().get(i).getCount());
+        }
+
+        // The reference breaks ties in hash order and the report by name, so the figures must match, and the
+        // categories listed must be a valid top N of the full reference ranking
+        assertEquals(counts(expected.getTopCategories()), counts(actual.getTopCategories()));
+        Map<String, Integer> allUnits = legacyCategoryUnits(START, END);
+        List<ReportDTO.CategorySalesDTO> top = actual.getTopCategories();
+        assertEquals(TOP_N, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            ReportDTO.CategorySalesDTO category = top.get(i);
+            assertEquals(allUnits.get(category.getName()), category.getCount(), category.getName());
+            if (i > 0) {
+                assertTrue(outranks(top.get(i - 1), category), category.getName() + " is out of order");
+            }
+        }
+        ReportDTO.CategorySalesDTO last = top.get(top.size() - 1);
+        Set<String> listed = top.stream().map(ReportDTO.CategorySalesDTO::getName).collect(Collectors.toSet());
+        for (Map.Entry<String, Integer> entry : allUnits.entrySet()) {
+            if (!listed.contains(entry.getKey())) {
+                assertTrue(outranks(last, new ReportDTO.CategorySalesDTO(entry.getKey(), entry.getValue())),
+                        entry.getKey() + " was cut off but outranks " + last.getName());
+            }
+        }
+    }
+
+    private static List<Integer> counts(List<ReportDTO.CategorySalesDTO> categories) {
+        return categories.stream().map(ReportDTO.CategorySalesDTO::getCount).collect(Collectors.toList());
+    }
+
+    // Most units first, ties by name
+    private static boolean outranks(ReportDTO.CategorySalesDTO a, ReportDTO.CategorySalesDTO b) {
+        int byCount = Integer.compare(a.getCount(), b.getCount());
+        return byCount > 0 || (byCount == 0 && a.getName().compareTo(b.getName()) < 0);
+    }
+
+    /**
+     * More categories than the report lists and an uncategorized book; orders in every status over twenty days
+     * around the report range, including orders on the first and last second of the range and just outside it.
+     */
+    private void seed() {
+        List<Book> books = new ArrayList<>();
+        for (int c = 1; c <= CATEGORIES; c++) {
+            Category category = new Category();
+            category.setName("Report category " + c);
+            category = categoryRepository.save(category);
+            for (int b = 0; b < 3; b++) {
+                books.add(saveBook("Report book " + c + "-" + b, category, new BigDecimal(20000 + 5000 * c + 1000 * b)));
+            }
+        }
+        books.add(saveBook("Report book without category", null, new BigDecimal("15000")));
+
+        Random random = new Random(42);
+        LocalDateTime from = START.minusDays(5).atStartOfDay();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime at = from.plusMinutes(random.nextInt(20 * 24 * 60));
+            saveOrder(at, STATUSES[random.nextInt(STATUSES.length)], books, random);
+        }
+        saveOrder(START.atStartOfDay(), "completed", books, random);
+        saveOrder(END.atTime(23, 59, 59), "pending", books, random);
+        saveOrder(START.minusDays(1).atTime(23, 59, 59), "shipped", books, random);
+        saveOrder(END.plusDays(1).atStartOfDay(), "completed", books, random);
+    }
+
+    /**
+     * Two more categories selling exactly as many units as the last one listed, so the top-N cut-off falls
+     * inside a tie of three.
+     */
+    private void seedTieAtTheCutOff() {
+        List<Integer> units = new ArrayList<>(legacyCategoryUnits(START, END).values());
+        units.sort(Comparator.reverseOrder());
+        int cutOff = units.get(TOP_N - 1);
+        for (String name : List.of("Report tie A", "Report tie B")) {
+            Category category = new Category();
+            category.setName(name);
+            Book book = saveBook(name + " book", categoryRepository.save(category), new BigDecimal("30000"));
+            OrderDetail line = new OrderDetail();
+            line.setBookId(book.getBookId());
+            line.setQuantity(cutOff);
+            line.setUnitPrice(book.getPrice());
+            saveOrder(START.plusDays(2).atTime(12, 0), "completed", List.of(line));
+        }
+    }
+
+    private Book saveBook(String title, Category category, BigDecimal price) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setPrice(price);
+        book.setStockQuantity(1000);
+        book.setCategory(category);
+        return bookRepository.save(book);
+    }
+
+    private void saveOrder(LocalDateTime at, String status, List<Book> books, Random random) {
+        int lineCount = 1 + random.nextInt(3);
+        List<OrderDetail> lines = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            Book book = books.get(random.nextInt(books.size()));
+            int quantity = 1 + random.nextInt(4);
+            OrderDetail line = new OrderDetail();
+            line.setBookId(book.getBookId());
+            line.setQuantity(quantity);
+            line.setUnitPrice(book.getPrice());
+            lines.add(line);
+        }
+        saveOrder(at, status, lines);
+    }
+
+    private void saveOrder(LocalDateTime at, String status, List<OrderDetail> lines) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderDetail line : lines) {
+            total = total.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        Order order = new Order();
+        order.setOrderDate(at);
+        order.setStatus(status);
+        order.setTotalAmount(total);
+        order.setShippingAddress("1 Report Street");
+        order.setCreatedAt(at);
+        order.setUpdatedAt(at);
+        Integer orderId = orderRepository.save(order).getOrderId();
+        for (OrderDetail line : lines) {
+            line.setOrderId(orderId);
+        }
+        orderDetailRepository.saveAll(lines);
+    }
+
+    /**
+     * The original generateReport: every order loaded and filtered in Java, top categories from every order
+     * line. Order lines are grouped once here instead of re-reading the table per order; the result is the same.
+     */
+    private ReportDTO legacyReport(LocalDate startDate, LocalDate endDate) {
+        ReportDTO report = new ReportDTO();
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        List<Order> orders = orderRepository.findAll().stream()
+                .filter(o -> !o.getOrderDate().isBefore(startDateTime) && !o.getOrderDate().isAfter(endDateTime))
+                .collect(Collectors.toList());
+
+        report.setTotalOrders(orders.size());
+        report.setTotalRevenue(orders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+        report.setTotalUsers((int) userRepository.count());
+        report.setTotalBooks((int) bookRepository.count());
+        report.setCompletedOrders((int) orders.stream().filter(o -> "completed".equals(o.getStatus())).count());
+        report.setPendingOrders((int) orders.stream().filter(o -> "pending".equals(o.getStatus())).count());
+        report.setShippedOrders((int) orders.stream().filter(o -> "shipped".equals(o.getStatus())).count());
+
+        Map<LocalDate, BigDecimal> dailyRevenue = new TreeMap<>();
+        Map<LocalDate, Integer> dailyOrders = new TreeMap<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            dailyRevenue.put(date, BigDecimal.ZERO);
+            dailyOrders.put(date, 0);
+        }
+        for (Order order : orders) {
+            LocalDate day = order.getOrderDate().toLocalDate();
+            dailyRevenue.put(day, dailyRevenue.get(day).add(order.getTotalAmount()));
+            dailyOrders.put(day, dailyOrders.get(day) + 1);
+        }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        report.setDailyRevenue(dailyRevenue.entrySet().stream()
+                .map(e -> new ReportDTO.DailyRevenueDTO(e.getKey().format(formatter), e.getValue()))
+                .collect(Collectors.toList()));
+        report.setDailyOrders(dailyOrders.entrySet().stream()
+                .map(e -> new ReportDTO.DailyOrderDTO(e.getKey().format(formatter), e.getValue()))
+                .collect(Collectors.toList()));
+
+        report.setTopCategories(legacyCategoryUnits(startDate, endDate).entrySet().stream()
+                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
+                .limit(TOP_N)
+                .map(e -> new ReportDTO.CategorySalesDTO(e.getKey(), e.getValue()))
+                .collect(Collectors.toList()));
+        return report;
+    }
+
+    /**
+     * Units per category name over every order line in the range, as the original report counted them.
+     */
+    private Map<String, Integer> legacyCategoryUnits(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        List<Order> orders = orderRepository.findAll().stream()
+                .filter(o -> !o.getOrderDate().isBefore(startDateTime) && !o.getOrderDate().isAfter(endDateTime))
+                .collect(Collectors.toList());
+        Map<Integer, List<OrderDetail>> detailsByOrder = orderDetailRepository.findAll().stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+        Map<String, Integer> categoryMap = new HashMap<>();
+        for (Order order : orders) {
+            for (OrderDetail detail : detailsByOrder.getOrDefault(order.getOrderId(), List.of())) {
+                Book book = bookRepository.findById(detail.getBookId()).orElse(null);
+                if (book != null && book.getCategory() != null) {
+                    categoryMap.merge(book.getCategory().getName(), detail.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        return categoryMap;
+    }
+}
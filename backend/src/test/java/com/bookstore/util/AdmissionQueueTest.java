@@ -0,0 +1,90 @@
+package com.bookstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdmissionQueueTest {
+    private final long[] now = {0};
+
+    // 2 admissions per second, burst 2, at most 3 waiting, admitted tickets good for 10 s
+    private AdmissionQueue queue() {
+        return new AdmissionQueue(2, 2, 3, 10_000, () -> now[0]);
+    }
+
+    @Test
+    void burstIsAdmittedThenArrivalsQueueThenAreRejected() {
+        AdmissionQueue queue = queue();
+
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.arrive().getOutcome());
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.arrive().getOutcome());
+        AdmissionQueue.Decision first = queue.arrive();
+        assertEquals(AdmissionQueue.Outcome.QUEUED, first.getOutcome());
+        assertEquals(1, first.getPosition());
+        assertEquals(AdmissionQueue.Outcome.QUEUED, queue.arrive().getOutcome());
+        assertEquals(AdmissionQueue.Outcome.QUEUED, queue.arrive().getOutcome());
+        assertEquals(AdmissionQueue.Outcome.REJECTED, queue.arrive().getOutcome());
+        assertEquals(3, queue.queueLength());
+    }
+
+    @Test
+    void ticketsAreAdmittedInOrderAsCreditAccrues() {
+        AdmissionQueue queue = queue();
+        queue.arrive();
+        queue.arrive();
+        long first = queue.arrive().getTicket();
+        long second = queue.arrive().getTicket();
+
+        now[0] = 600;
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.check(first).getOutcome());
+        AdmissionQueue.Decision stillWaiting = queue.check(second);
+        assertEquals(AdmissionQueue.Outcome.QUEUED, stillWaiting.getOutcome());
+        assertEquals(1, stillWaiting.getPosition());
+    }
+
+    @Test
+    void admittedTicketLetsOnlyOneRequestIn() {
+        AdmissionQueue queue = queue();
+        queue.arrive();
+        queue.arrive();
+        long ticket = queue.arrive().getTicket();
+        long behind = queue.arrive().getTicket();
+
+        now[0] = 600;
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.check(ticket).getOutcome());
+        // The replay is a fresh arrival and has to wait behind the ticket still queued
+        AdmissionQueue.Decision replay = queue.check(ticket);
+        assertEquals(AdmissionQueue.Outcome.QUEUED, replay.getOutcome());
+        assertEquals(2, replay.getPosition());
+        assertEquals(AdmissionQueue.Outcome.QUEUED, queue.check(behind).getOutcome());
+    }
+
+    @Test
+    void givenBackTicketCanBeUsedAgain() {
+        AdmissionQueue queue = queue();
+        queue.arrive();
+        queue.arrive();
+        long ticket = queue.arrive().getTicket();
+
+        now[0] = 600;
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.check(ticket).getOutcome());
+        queue.giveBack(ticket);
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, queue.check(ticket).getOutcome());
+    }
+
+    @Test
+    void admittedTicketExpires() {
+        AdmissionQueue queue = queue();
+        queue.arrive();
+        queue.arrive();
+        long ticket = queue.arrive().getTicket();
+
+        now[0] = 600;
+        assertEquals(0, queue.queueLength());
+        now[0] = 600 + 10_001;
+        // Long past its admission; by now the burst is back, so it gets in as a ticketless arrival
+        AdmissionQueue.Decision late = queue.check(ticket);
+        assertEquals(AdmissionQueue.Outcome.ADMITTED, late.getOutcome());
+        assertEquals(-1, late.getTicket());
+    }
+}
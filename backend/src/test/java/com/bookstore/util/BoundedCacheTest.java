@@ -0,0 +1,63 @@
+package com.bookstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BoundedCacheTest {
+
+    @Test
+    void loadOverlappingAnInvalidationOfItsKeyIsNotStored() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60_000);
+
+        String loaded = cache.getOrLoad(1, key -> {
+            cache.invalidate(1);
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void invalidatingAnotherKeyDoesNotDiscardTheLoad() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60_000);
+
+        cache.getOrLoad(1, key -> {
+            cache.invalidate(2);
+            return "one";
+        });
+
+        assertEquals("one", cache.get(1));
+    }
+
+    @Test
+    void clearDiscardsEveryInFlightLoad() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60_000);
+
+        cache.getOrLoad(1, key -> {
+            cache.clear();
+            return "one";
+        });
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpires() {
+        long[] now = {0};
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 2, 1_000, () -> now[0]);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.put(3, "three");
+
+        assertNull(cache.get(2));
+        assertEquals("one", cache.get(1));
+
+        now[0] = 1_000;
+        assertNull(cache.get(1));
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.bookstore.util;
+
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NGramIndexTest {
+
+    @Test
+    void findsMidWordTransposition() {
+        NGramIndex index = new NGramIndex();
+        index.add("tieng");
+        index.add("vietnam");
+
+        assertEquals(Map.of("tieng", 1), index.similarTerms("tineg", 1));
+        assertEquals(Map.of("vietnam", 1), index.similarTerms("vitenam", 1));
+    }
+
+    @Test
+    void findsSubstitutionInsertionAndDeletion() {
+        NGramIndex index = new NGramIndex();
+        index.add("sach");
+        index.add("hanoi");
+
+        assertTrue(index.similarTerms("sack", 1).containsKey("sach"));
+        assertTrue(index.similarTerms("hannoi", 1).containsKey("hanoi"));
+        assertTrue(index.similarTerms("hano", 1).containsKey("hanoi"));
+    }
+
+    @Test
+    void rejectsTermsBeyondMaxEdits() {
+        NGramIndex index = new NGramIndex();
+        index.add("tieng");
+
+        assertFalse(index.similarTerms("tanog", 1).containsKey("tieng"));
+    }
+}
@@ -0,0 +1,177 @@
+package com.bookstore.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesFactTableTest {
+    private static final int ORDERS = 500_000;
+    private static final int FIRST_DAY = 19_000;
+    private static final int DAYS = 400;
+    // Deliberately loose: a full scan does tens of millions of rows per second, so this only trips on a regression
+    // back to per-row objects or a lost parallel split, not on a slow build machine
+    private static final long MIN_ROWS_PER_SECOND = 5_000_000;
+
+    private static SalesFactTable table;
+    // The same lines kept row by row, for the naive reference loop
+    private static int[] rowDays;
+    private static int[] rowCategories;
+    private static int[] rowQuantities;
+    private static long[] rowPrices;
+    private static boolean[] rowCancelled;
+    private static int rows;
+
+    @BeforeAll
+    static void fillTable() {
+        table = new SalesFactTable();
+        rowDays = new int[ORDERS * 3];
+        rowCategories = new int[ORDERS * 3];
+        rowQuantities = new int[ORDERS * 3];
+        rowPrices = new long[ORDERS * 3];
+        rowCancelled = new boolean[ORDERS * 3];
+        Random random = new Random(1);
+        for (int orderId = 1; orderId <= ORDERS; orderId++) {
+            int lines = 1 + random.nextInt(3);
+            int day = FIRST_DAY + random.nextInt(DAYS);
+            boolean cancelled = orderId % 10 == 0;
+            int[] books = new int[lines];
+            int[] categories = new int[lines];
+            int[] authors = new int[lines];
+            int[] quantities = new int[lines];
+            long[] prices = new long[lines];
+            for (int i = 0; i < lines; i++) {
+                books[i] = 1 + random.nextInt(1000);
+                categories[i] = books[i] % 6;
+                authors[i] = books[i] % 50;
+                quantities[i] = 1 + random.nextInt(4);
+                prices[i] = (5 + random.nextInt(50)) * 100_000L;
+                rowDays[rows] = day;
+                rowCategories[rows] = categories[i];
+                rowQuantities[rows] = quantities[i];
+                rowPrices[rows] = prices[i];
+                rowCancelled[rows] = cancelled;
+                rows++;
+            }
+            table.appendOrder(orderId, day, cancelled ? "cancelled" : "pending", books, categories, authors, quantities, prices);
+        }
+    }
+
+    @Test
+    void appendingAnOrderTwiceAddsNothing() {
+        assertFalse(table.appendOrder(5, FIRST_DAY, "pending", new int[]{1}, new int[]{1}, new int[]{1},
+                new int[]{1}, new long[]{1}));
+        assertEquals(rows, table.size());
+    }
+
+    @Test
+    void groupByCategoryMatchesANaiveLoop() {
+        Map<String, Long> expectedUnits = new HashMap<>();
+        Map<String, Long> expectedRevenue = new HashMap<>();
+        long expectedLines = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!rowCancelled[row]) {
+                String key = String.valueOf(rowCategories[row]);
+                expectedUnits.merge(key, (long) rowQuantities[row], Long::sum);
+                expectedRevenue.merge(key, rowPrices[row] * rowQuantities[row], Long::sum);
+                expectedLines++;
+            }
+        }
+
+        SalesFactTable.Query query = new SalesFactTable.Query(FIRST_DAY, FIRST_DAY + DAYS - 1);
+        query.setStatuses(List.of("pending"));
+        query.setGroupBy(SalesFactTable.GroupBy.CATEGORY);
+        SalesFactTable.Result result = table.query(query, ForkJoinPool.commonPool());
+
+        assertEquals(expectedLines, result.getMatchedRows());
+        assertEquals(expectedUnits.size(), result.getGroups().size());
+        for (SalesFactTable.Group group : result.getGroups()) {
+            assertEquals(expectedUnits.get(group.getKey()).longValue(), group.getUnits());
+            assertEquals(expectedRevenue.get(group.getKey()).longValue(), group.getRevenue());
+        }
+    }
+
+    @Test
+    void combinedFiltersMatchANaiveLoop() {
+        int dayFrom = FIRST_DAY + 100;
+        int dayTo = FIRST_DAY + 200;
+        long maxPrice = 3_000_000;
+        long expectedRevenue = 0;
+        long expectedLines = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!rowCancelled[row] && rowCategories[row] == 2 && rowDays[row] >= dayFrom && rowDays[row] <= dayTo
+                    && rowPrices[row] < maxPrice) {
+                expectedRevenue += rowPrices[row] * rowQuantities[row];
+                expectedLines++;
+            }
+        }
+
+        SalesFactTable.Query query = new SalesFactTable.Query(dayFrom, dayTo);
+        query.setStatuses(List.of("PENDING"));
+        query.setCategoryIds(new int[]{2});
+        query.setMaxUnitPrice(maxPrice);
+        query.setGroupBy(SalesFactTable.GroupBy.MONTH);
+        SalesFactTable.Result result = table.query(query, ForkJoinPool.commonPool());
+
+        long revenue = 0;
+        long lines = 0;
+        for (SalesFactTable.Group group : result.getGroups()) {
+            revenue += group.getRevenue();
+            lines += group.getLines();
+        }
+        assertEquals(expectedRevenue, revenue);
+        assertEquals(expectedLines, lines);
+        assertEquals(expectedLines, result.getMatchedRows());
+    }
+
+    @Test
+    void reversedRangeIsRejected() {
+        SalesFactTable.Query query = new SalesFactTable.Query(FIRST_DAY + 31, FIRST_DAY);
+        query.setGroupBy(SalesFactTable.GroupBy.MONTH);
+
+        assertThrows(IllegalArgumentException.class, () -> table.query(query, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void monthGroupsOverAVeryWideRangeOnlyHoldTheRows() {
+        SalesFactTable.Query query = new SalesFactTable.Query((int) LocalDate.of(1, 1, 1).toEpochDay(),
+                (int) LocalDate.of(9999, 12, 31).toEpochDay());
+        query.setGroupBy(SalesFactTable.GroupBy.MONTH);
+        SalesFactTable.Result result = table.query(query, ForkJoinPool.commonPool());
+
+        assertEquals(rows, result.getMatchedRows());
+        String firstMonth = LocalDate.ofEpochDay(FIRST_DAY).toString().substring(0, 7);
+        assertEquals(firstMonth, result.getGroups().get(0).getKey());
+    }
+
+    @Test
+    void fullScanKeepsItsThroughput() {
+        SalesFactTable.Query query = new SalesFactTable.Query(FIRST_DAY, FIRST_DAY + DAYS - 1);
+        query.setExcludedStatuses(List.of("cancelled"));
+        query.setGroupBy(SalesFactTable.GroupBy.CATEGORY);
+        for (int i = 0; i < 5; i++) {
+            table.query(query, ForkJoinPool.commonPool());
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long started = System.nanoTime();
+            SalesFactTable.Result result = table.query(query, ForkJoinPool.commonPool());
+            best = Math.min(best, System.nanoTime() - started);
+            assertEquals(rows, result.getScannedRows());
+        }
+        long rowsPerSecond = rows * 1_000_000_000L / Math.max(1, best);
+        assertTrue(rowsPerSecond >= MIN_ROWS_PER_SECOND,
+                "Scanned " + rows + " rows at " + rowsPerSecond + " rows/s, expected at least " + MIN_ROWS_PER_SECOND);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bookstore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedCounterTest {
+
+    @Test
+    void splitsTheInitialCountOverTheStripes() {
+        assertEquals(10, new StripedCounter(10, 3).sum());
+        assertEquals(2, new StripedCounter(2, 8).sum());
+        assertEquals(0, new StripedCounter(0, 4).sum());
+    }
+
+    @Test
+    void takeSpanningStripesSucceedsWhenTheTotalCoversIt() {
+        StripedCounter counter = new StripedCounter(8, 4);
+
+        assertTrue(counter.tryTake(7));
+        assertEquals(1, counter.sum());
+    }
+
+    @Test
+    void failedTakeLeavesTheCountUnchanged() {
+        StripedCounter counter = new StripedCounter(5, 4);
+
+        assertFalse(counter.tryTake(6));
+        assertEquals(5, counter.sum());
+        assertTrue(counter.tryTake(5));
+        assertFalse(counter.tryTake(1));
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    void addedUnitsCanBeTaken() {
+        StripedCounter counter = new StripedCounter(0, 4);
+        counter.add(3);
+
+        assertTrue(counter.tryTake(3));
+        assertEquals(0, counter.sum());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedCounter(-1, 4));
+        assertThrows(IllegalArgumentException.class, () -> new StripedCounter(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StripedCounter(1, 4).tryTake(0));
+        assertThrows(IllegalArgumentException.class, () -> new StripedCounter(1, 4).add(-1));
+    }
+
+    @Test
+    void parallelTakesNeverSellMoreThanTheCount() throws Exception {
+        int initial = 1000;
+        int threads = 16;
+        for (int round = 0; round < 20; round++) {
+            StripedCounter counter = new StripedCounter(initial, 8);
+            AtomicInteger sold = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 500; i++) {
+                            int qty = 1 + ThreadLocalRandom.current().nextInt(3);
+                            if (counter.tryTake(qty)) {
+                                sold.addAndGet(qty);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertTrue(counter.sum() >= 0);
+            assertEquals(initial, sold.get() + counter.sum());
+        }
+    }
+}
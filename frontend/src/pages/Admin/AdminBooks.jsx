@@ -69,8 +69,15 @@ function AdminBooks() {
 
   const fetchBooks = async () => {
     try {
-      const response = await api.get('/books')
-      setBooks(response.data)
+      // The admin table filters client-side, so walk every keyset page
+      const all = []
+      let cursor = null
+      do {
+        const response = await api.get('/books', { params: { cursor, size: 100 } })
+        all.push(...(response.data?.items || []))
+        cursor = response.data?.hasMore ? response.data.nextCursor : null
+      } while (cursor)
+      setBooks(all)
     } catch (err) {
       console.error('Error fetching books:', err)
       setError('Lỗi tải danh sách sách')
@@ -100,7 +100,8 @@ function AdminOrders() {
   const handleEditOrder = (order) => {
     setEditingId(order.orderId)
     setFormData({
-      status: order.status || 'pending'
+      status: order.status || 'pending',
+      version: order.version
     })
     setMessage('')
     setError('')
@@ -140,8 +141,10 @@ function AdminOrders() {
     setMessage('')
 
     try {
+      // The version makes the server refuse the change if someone else updated the order meanwhile
       const orderData = {
-        status: formData.status
+        status: formData.status,
+        version: formData.version
       }
 
       await api.put(`/orders/${editingId}`, orderData)
@@ -151,7 +154,10 @@ function AdminOrders() {
       fetchOrders()
       setTimeout(() => setMessage(''), 2000)
     } catch (err) {
-      const errorMsg = err.response?.data?.error || 'Lỗi cập nhật đơn hàng. Vui lòng thử lại.'
+      const errorMsg = err.response?.data?.message || err.response?.data?.error || 'Lỗi cập nhật đơn hàng. Vui lòng thử lại.'
+      if (err.response?.status === 409) {
+        fetchOrders()
+      }
       setError(errorMsg)
       showError('❌ ' + errorMsg)
       console.error(err)
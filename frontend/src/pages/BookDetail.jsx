@@ -10,6 +10,7 @@ function BookDetail() {
   const navigate = useNavigate()
   const [book, setBook] = useState(null)
   const [relatedBooks, setRelatedBooks] = useState([])
+  const [reviews, setReviews] = useState([])
   const [loading, setLoading] = useState(true)
   const [quantity, setQuantity] = useState(1)
   const { addToCart } = useContext(CartContext)
@@ -22,6 +23,9 @@ function BookDetail() {
     if (book && book.category) {
       fetchRelatedBooks()
     }
+    if (book && book.ratingCount > 0) {
+      fetchReviews()
+    }
   }, [book])
 
   const fetchBook = async () => {
@@ -38,9 +42,9 @@ function BookDetail() {
 
   const fetchRelatedBooks = async () => {
     try {
-      const response = await bookService.getBooksByCategory(book.category.categoryId)
-      // Filter out current book and limit to 4 books
-      const filtered = response.data
+      // One small page is enough: at most the current book has to be dropped from it
+      const response = await bookService.getBooksByCategory(book.category.categoryId, null, 5)
+      const filtered = (response.data?.items || [])
         .filter(b => b.bookId !== book.bookId)
         .slice(0, 4)
       setRelatedBooks(filtered)
@@ -49,6 +53,15 @@ function BookDetail() {
     }
   }
 
+  const fetchReviews = async () => {
+    try {
+      const response = await bookService.getBookReviews(book.bookId)
+      setReviews(response.data)
+    } catch (err) {
+      console.error('Lỗi khi tải nhận xét:', err)
+    }
+  }
+
   const handleAddToCart = () => {
     if (book.stockQuantity < quantity) {
       showError('❌ Số lượng tồn kho không đủ')
@@ -64,9 +77,7 @@ function BookDetail() {
   if (loading) return <div className="loading">Đang tải...</div>
   if (!book) return <div className="loading">Không tìm thấy sách</div>
 
-  const averageRating = book.reviews && book.reviews.length > 0
-    ? (book.reviews.reduce((sum, r) => sum + r.rating, 0) / book.reviews.length).toFixed(1)
-    : 0
+  const averageRating = book.ratingCount > 0 ? book.averageRating.toFixed(1) : 0
 
   return (
     <div className="book-detail-container">
@@ -84,10 +95,10 @@ function BookDetail() {
         <div className="book-info-section">
           <div className="book-header">
             <h1>{book.title}</h1>
-            {book.reviews && book.reviews.length > 0 && (
+            {book.ratingCount > 0 && (
               <div className="rating-badge">
                 <span className="stars">{'⭐'.repeat(Math.round(averageRating))}</span>
-                <span className="rating-text">{averageRating} ({book.reviews.length} đánh giá)</span>
+                <span className="rating-text">{averageRating} ({book.ratingCount} đánh giá)</span>
               </div>
             )}
           </div>
@@ -169,11 +180,11 @@ function BookDetail() {
         </div>
       </div>
 
-      {book.reviews && book.reviews.length > 0 && (
+      {reviews.length > 0 && (
         <section className="reviews-section">
-          <h2>💬 Nhận Xét Từ Khách Hàng ({book.reviews.length})</h2>
+          <h2>💬 Nhận Xét Từ Khách Hàng ({reviews.length})</h2>
           <div className="reviews-list">
-            {book.reviews.map(review => (
+            {reviews.map(review => (
               <div key={review.reviewId} className="review-item">
                 <div className="review-header">
                   <span className="review-rating">{'⭐'.repeat(review.rating)}</span>
@@ -13,6 +13,8 @@ function BookList() {
   const [categories, setCategories] = useState([])
   const [authors, setAuthors] = useState([])
   const [loading, setLoading] = useState(true)
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [error, setError] = useState(null)
   const [searchKeyword, setSearchKeyword] = useState('')
   const [sortBy, setSortBy] = useState('newest')
@@ -45,8 +47,9 @@ function BookList() {
   const fetchBooks = async () => {
     try {
       setLoading(true)
-      const response = await bookService.getAllBooks()
-      setBooks(response.data || [])
+      const response = await bookService.getBooksPage()
+      setBooks(response.data?.items || [])
+      setNextCursor(response.data?.hasMore ? response.data.nextCursor : null)
       setError(null)
     } catch (err) {
       setError('Lỗi khi tải sách')
@@ -56,6 +59,21 @@ function BookList() {
     }
   }
 
+  const fetchMoreBooks = async () => {
+    if (!nextCursor) return
+    try {
+      setLoadingMore(true)
+      const response = await bookService.getBooksPage(nextCursor)
+      setBooks(prev => [...prev, ...(response.data?.items || [])])
+      setNextCursor(response.data?.hasMore ? response.data.nextCursor : null)
+    } catch (err) {
+      setError('Lỗi khi tải sách')
+      console.error('Error fetching books:', err)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   const fetchCategories = async () => {
     try {
       const response = await categoryService.getAllCategories()
@@ -210,6 +228,14 @@ function BookList() {
               </div>
             ))}
           </div>
+
+          {nextCursor && (
+            <div className="load-more">
+              <button className="btn-add-cart" onClick={fetchMoreBooks} disabled={loadingMore}>
+                {loadingMore ? 'Đang tải...' : 'Xem thêm sách'}
+              </button>
+            </div>
+          )}
         </main>
 
         <aside className="filters-sidebar">
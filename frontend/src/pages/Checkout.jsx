@@ -1,4 +1,4 @@
-import { useState, useContext, useEffect } from 'react'
+import { useState, useContext, useEffect, useRef } from 'react'
 import { useNavigate } from 'react-router-dom'
 import { CartContext } from '../context/CartContext'
 import { AuthContext } from '../context/AuthContext'
@@ -20,6 +20,8 @@ function Checkout() {
   })
   const [loading, setLoading] = useState(false)
   const [error, setError] = useState('')
+  // Kept across retries of the same checkout so a resubmit after a lost response cannot place a second order
+  const idempotencyKey = useRef(null)
 
   useEffect(() => {
     if (!isAuthenticated) {
@@ -68,21 +70,28 @@ function Checkout() {
         userId: user.userId,
         totalAmount: totalAmount,
         shippingAddress: formData.address,
-        status: 'pending'
+        status: 'pending',
+        paymentMethod: formData.paymentMethod,
+        items: cartItems.map((item) => ({ bookId: item.bookId, quantity: item.quantity }))
       }
 
       console.log('Creating order with data:', JSON.stringify(orderData))
       console.log('Token in localStorage:', localStorage.getItem('token'))
-      const orderResponse = await orderService.createOrder(orderData)
+      if (!idempotencyKey.current) {
+        idempotencyKey.current = crypto.randomUUID()
+      }
+      const orderResponse = await orderService.createOrder(orderData, idempotencyKey.current)
       console.log('Order created successfully:', orderResponse.data)
       const orderId = orderResponse.data.orderId
+      // The server prices the items, so pay what it charged rather than the cart's own sum
+      const chargedAmount = Number(orderResponse.data.totalAmount ?? totalAmount)
 
       if (formData.paymentMethod === 'VNPay') {
         // Create VNPay payment URL
-        const returnUrl = `${window.location.origin}/payment-success?orderId=${orderId}&amount=${totalAmount}`
+        const returnUrl = `${window.location.origin}/payment-success?orderId=${orderId}&amount=${chargedAmount}`
         const paymentResponse = await paymentService.createVNPayUrl(
           orderId,
-          totalAmount * 100,
+          Math.round(chargedAmount * 100),
           `Thanh toan don hang ${orderId}`,
           returnUrl
         )
@@ -100,6 +109,11 @@ function Checkout() {
       }
     } catch (err) {
       dismissToast(toastId)
+      // A 4xx is a definite answer, so the next attempt (e.g. after editing the form) is a new request
+      const status = err.response?.status
+      if (status >= 400 && status < 500) {
+        idempotencyKey.current = null
+      }
       const errorMsg = err.response?.data?.error || 'Lỗi khi tạo đơn hàng. Vui lòng thử lại.'
       setError(errorMsg)
       showError('❌ ' + errorMsg)
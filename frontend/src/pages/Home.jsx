@@ -21,19 +21,14 @@ function Home() {
       setLoading(true)
       setError(null)
       
-      const [booksRes, categoriesRes] = await Promise.all([
-        bookService.getAllBooks(),
+      const [newBooksRes, bestsellersRes, categoriesRes] = await Promise.all([
+        bookService.getNewBooks(4),
+        bookService.getBestsellers(4),
         categoryService.getAllCategories()
       ])
 
-      const books = booksRes.data || []
-      const newest = books.slice(-4).reverse()
-      setNewBooks(newest)
-
-      const bestsellers = books
-        .sort((a, b) => (b.stockQuantity || 0) - (a.stockQuantity || 0))
-        .slice(0, 4)
-      setBestsellerBooks(bestsellers)
+      setNewBooks(newBooksRes.data || [])
+      setBestsellerBooks(bestsellersRes.data || [])
 
       setCategories(categoriesRes.data || [])
     } catch (err) {
@@ -7,6 +7,9 @@ import '../styles/OrderHistory.css'
 
 function OrderHistory() {
   const [orders, setOrders] = useState([])
+  const [summary, setSummary] = useState(null)
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [loading, setLoading] = useState(true)
   const { user } = useContext(AuthContext)
   const navigate = useNavigate()
@@ -22,8 +25,13 @@ function OrderHistory() {
   const fetchOrders = async () => {
     try {
       const userId = user.userId
-      const response = await orderService.getOrdersByUserId(userId)
-      setOrders(response.data || [])
+      const [pageResponse, summaryResponse] = await Promise.all([
+        orderService.getOrdersPage(userId),
+        orderService.getOrderSummary(userId),
+      ])
+      setOrders(pageResponse.data?.items || [])
+      setNextCursor(pageResponse.data?.nextCursor || null)
+      setSummary(summaryResponse.data)
     } catch (err) {
       console.error('Lỗi khi tải lịch sử đơn hàng:', err)
       showError('❌ Lỗi khi tải lịch sử đơn hàng')
@@ -32,11 +40,35 @@ function OrderHistory() {
     }
   }
 
+  const loadMore = async () => {
+    setLoadingMore(true)
+    try {
+      const response = await orderService.getOrdersPage(user.userId, nextCursor)
+      setOrders((prev) => [...prev, ...(response.data?.items || [])])
+      setNextCursor(response.data?.nextCursor || null)
+    } catch (err) {
+      console.error('Lỗi khi tải thêm đơn hàng:', err)
+      showError('❌ Lỗi khi tải thêm đơn hàng')
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   if (loading) return <div className="loading">Đang tải...</div>
 
   return (
     <div className="order-history-container">
       <h1>Lịch Sử Đơn Hàng</h1>
+
+      {summary && summary.orderCount > 0 && (
+        <div className="order-summary">
+          <p>Tổng số đơn: {summary.orderCount}</p>
+          <p>Tổng chi tiêu: {Number(summary.totalSpent).toLocaleString()} VND</p>
+          {summary.lastOrderDate && (
+            <p>Đơn gần nhất: {new Date(summary.lastOrderDate).toLocaleDateString('vi-VN')}</p>
+          )}
+        </div>
+      )}
       
       {orders.length === 0 ? (
         <div className="empty-state">
@@ -55,9 +87,23 @@ function OrderHistory() {
                 <p>Ngày đặt: {new Date(order.orderDate).toLocaleDateString('vi-VN')}</p>
                 <p>Tổng tiền: {order.totalAmount?.toLocaleString()} VND</p>
                 <p>Địa chỉ: {order.shippingAddress}</p>
+                {order.items?.length > 0 && (
+                  <ul className="order-items">
+                    {order.items.map((item) => (
+                      <li key={item.detailId ?? item.bookId}>
+                        {item.bookTitle || 'Sách không tồn tại'} × {item.quantity}
+                      </li>
+                    ))}
+                  </ul>
+                )}
               </div>
             </div>
           ))}
+          {nextCursor && (
+            <button className="btn btn-primary" onClick={loadMore} disabled={loadingMore}>
+              {loadingMore ? 'Đang tải...' : 'Xem thêm'}
+            </button>
+          )}
         </div>
       )}
     </div>
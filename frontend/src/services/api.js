@@ -24,10 +24,24 @@ api.interceptors.request.use((config) => {
   return Promise.reject(error)
 })
 
+const MAX_QUEUE_RETRIES = 120
+
 // Handle responses
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    // Checkout waiting room: wait our turn, then resend with the queue ticket
+    const config = error.config
+    if (error.response?.status === 429 && error.response.data?.ticket && config) {
+      config._queueRetries = (config._queueRetries || 0) + 1
+      if (config._queueRetries <= MAX_QUEUE_RETRIES) {
+        const retryAfter = Number(error.response.headers['retry-after'] || error.response.data.retryAfter || 1)
+        await new Promise((resolve) => setTimeout(resolve, retryAfter * 1000))
+        config.headers['X-Queue-Ticket'] = error.response.data.ticket
+        return api(config)
+      }
+    }
+
     // Handle 401 Unauthorized
     if (error.response?.status === 401) {
       localStorage.removeItem('token')
@@ -1,7 +1,8 @@
 import api from './api'
 
 const bookService = {
-  getAllBooks: () => api.get('/books'),
+  // One keyset page: { items, nextCursor, hasMore, size }
+  getBooksPage: (cursor, size) => api.get('/books', { params: { cursor, size } }),
   
   getBookById: (id) => api.get(`/books/${id}`),
   
@@ -13,9 +14,16 @@ const bookService = {
   
   searchBooks: (keyword) => api.get('/books/search', { params: { keyword } }),
   
-  getBooksByCategory: (categoryId) => api.get(`/books/category/${categoryId}`),
+  getNewBooks: (limit) => api.get('/books/new/list', { params: { limit } }),
+
+  getBestsellers: (limit) => api.get('/books/bestsellers/list', { params: { limit } }),
+  
+  // Keyset pages of one category or author, same shape as getBooksPage
+  getBooksByCategory: (categoryId, cursor, size) => api.get(`/books/category/${categoryId}`, { params: { cursor, size } }),
   
-  getBooksByAuthor: (authorId) => api.get(`/books/author/${authorId}`),
+  getBooksByAuthor: (authorId, cursor, size) => api.get(`/books/author/${authorId}`, { params: { cursor, size } }),
+
+  getBookReviews: (bookId) => api.get('/reviews/filter', { params: { bookId } }),
 }
 
 export default bookService
@@ -5,9 +5,18 @@ const orderService = {
   
   getOrderById: (id) => api.get(`/orders/${id}`),
   
-  getOrdersByUserId: (userId) => api.get(`/orders/user/${userId}`),
+  getOrdersByUserId: (userId, includeItems = false) =>
+    api.get(`/orders/user/${userId}`, { params: includeItems ? { includeItems: true } : {} }),
   
-  createOrder: (order) => api.post('/orders', order),
+  // Keyset-paginated history, newest first; pass the previous page's nextCursor to continue
+  getOrdersPage: (userId, cursor, size = 20) =>
+    api.get(`/orders/user/${userId}`, { params: { size, includeItems: true, ...(cursor ? { cursor } : {}) } }),
+
+  getOrderSummary: (userId) => api.get(`/orders/user/${userId}/summary`),
+
+  // Retries with the same idempotencyKey get the first response back instead of placing the order twice
+  createOrder: (order, idempotencyKey) =>
+    api.post('/orders', order, idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : {}),
   
   updateOrder: (id, order) => api.put(`/orders/${id}`, order),
   